@@ -1,14 +1,24 @@
 package org.psp.api.composite.product;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+/**
+ * Recommendations and reviews hold only the first page. When there are more, the matching cursor is set
+ * and is passed as the {@code after} parameter to fetch the next page; it is absent on the last page.
+ * <p>
+ * When a core service fails, its part may be served from the last copy the composite received. The
+ * {@code stale} list then names those parts (product, recommendations, reviews); it is absent when all
+ * parts are fresh.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProductAggregate {
     private int productId;
     private String name;
@@ -16,4 +26,19 @@ public class ProductAggregate {
     private List<RecommendationSummary> recommendations;
     private List<ReviewSummary> reviews;
     private ServiceAddresses serviceAddresses;
+    private Integer recommendationsCursor;
+    private Integer reviewsCursor;
+    private List<String> stale;
+
+    public ProductAggregate(int productId, String name, int weight, List<RecommendationSummary> recommendations,
+                            List<ReviewSummary> reviews, ServiceAddresses serviceAddresses) {
+        this(productId, name, weight, recommendations, reviews, serviceAddresses, null, null);
+    }
+
+    public ProductAggregate(int productId, String name, int weight, List<RecommendationSummary> recommendations,
+                            List<ReviewSummary> reviews, ServiceAddresses serviceAddresses,
+                            Integer recommendationsCursor, Integer reviewsCursor) {
+        this(productId, name, weight, recommendations, reviews, serviceAddresses, recommendationsCursor,
+                reviewsCursor, null);
+    }
 }
@@ -0,0 +1,40 @@
+package org.psp.api.composite.product;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One element of a streamed product aggregate. The stream starts with a PRODUCT element carrying the
+ * product header, i.e. an aggregate without recommendations and reviews, followed by one element per
+ * recommendation and review in the order they arrive.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductAggregatePart {
+    public enum Type {
+        PRODUCT,
+        RECOMMENDATION,
+        REVIEW
+    }
+
+    private Type type;
+    private ProductAggregate product;
+    private RecommendationSummary recommendation;
+    private ReviewSummary review;
+
+    public static ProductAggregatePart product(ProductAggregate product) {
+        return new ProductAggregatePart(Type.PRODUCT, product, null, null);
+    }
+
+    public static ProductAggregatePart recommendation(RecommendationSummary recommendation) {
+        return new ProductAggregatePart(Type.RECOMMENDATION, null, recommendation, null);
+    }
+
+    public static ProductAggregatePart review(ReviewSummary review) {
+        return new ProductAggregatePart(Type.REVIEW, null, null, review);
+    }
+}
@@ -6,8 +6,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Tag(name = "ProductComposite",
         description = "REST API for composite product information")
 public interface ProductCompositeService {
@@ -18,7 +21,8 @@ public interface ProductCompositeService {
 
     @Operation(
             summary = "Product composite",
-            description = "Интегральный сервис"
+            description = "Интегральный сервис. Параметр include (product, recommendations, reviews) "
+                    + "ограничивает состав ответа и вызовы к базовым сервисам"
     )
     @ApiResponses(
             value = {
@@ -28,7 +32,67 @@ public interface ProductCompositeService {
     @GetMapping(
             value = "/product-composite/{productId}",
             produces = "application/json")
-    Mono<ProductAggregate> getProduct(@PathVariable("productId") int productId);
+    Mono<ProductAggregate> getProduct(@PathVariable("productId") int productId,
+                                      @RequestParam(value = "include", required = false) List<String> include);
+
+    @Operation(
+            summary = "Product composite stream",
+            description = "Интегральный сервис в потоковом виде: сначала продукт, затем рекомендации и отзывы "
+                    + "по мере поступления"
+    )
+    @GetMapping(
+            value = "/product-composite/{productId}/stream",
+            produces = {"application/x-ndjson", "text/event-stream"})
+    Flux<ProductAggregatePart> getProductStream(@PathVariable("productId") int productId);
+
+    @Operation(
+            summary = "Product recommendations page",
+            description = "Следующая страница рекомендаций продукта. Параметр after - курсор recommendationsCursor "
+                    + "из ProductAggregate или последний recommendationId предыдущей страницы"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "422", description = "Invalid input")
+            }
+    )
+    @GetMapping(
+            value = "/product-composite/{productId}/recommendations",
+            produces = "application/json")
+    Flux<RecommendationSummary> getRecommendations(@PathVariable("productId") int productId,
+                                                   @RequestParam(value = "after", required = false) Integer after,
+                                                   @RequestParam(value = "limit", required = false) Integer limit);
+
+    @Operation(
+            summary = "Product reviews page",
+            description = "Следующая страница отзывов продукта. Параметр after - курсор reviewsCursor "
+                    + "из ProductAggregate или последний reviewId предыдущей страницы"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "422", description = "Invalid input")
+            }
+    )
+    @GetMapping(
+            value = "/product-composite/{productId}/reviews",
+            produces = "application/json")
+    Flux<ReviewSummary> getReviews(@PathVariable("productId") int productId,
+                                   @RequestParam(value = "after", required = false) Integer after,
+                                   @RequestParam(value = "limit", required = false) Integer limit);
+
+    @Operation(
+            summary = "Product composite batch",
+            description = "Интегральный сервис, пакетное чтение по списку идентификаторов"
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "422", description = "Invalid input")
+            }
+    )
+    @PostMapping(
+            value = "/product-composite/batch",
+            consumes = "application/json",
+            produces = "application/json")
+    Flux<ProductAggregate> getProducts(@RequestBody List<Integer> productIds);
 
     @ResponseStatus(HttpStatus.ACCEPTED)
     @DeleteMapping("/product-composite/{productId}")
@@ -30,6 +30,13 @@ public class Event<K, T> {
         eventCreatedAt = ZonedDateTime.now();
     }
 
+    public Event(Type eventType, K key, T data, ZonedDateTime eventCreatedAt) {
+        this.eventType = eventType;
+        this.key = key;
+        this.data = data;
+        this.eventCreatedAt = eventCreatedAt;
+    }
+
     public Type getEventType() {
         return eventType;
     }
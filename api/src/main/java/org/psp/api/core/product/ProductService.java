@@ -1,8 +1,11 @@
 package org.psp.api.core.product;
 
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ProductService {
 
     Mono<Product> createProduct(@RequestBody Product body);
@@ -12,5 +15,10 @@ public interface ProductService {
             produces = "application/json")
     Mono<Product> getProduct(@PathVariable("productId") int productId);
 
+    @GetMapping(
+            value = "/product",
+            produces = "application/json")
+    Flux<Product> getProducts(@RequestParam("productId") List<Integer> productIds);
+
     Mono<Void> deleteProduct(@PathVariable("productId") int productId);
 }
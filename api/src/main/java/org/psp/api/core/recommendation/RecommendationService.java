@@ -1,7 +1,9 @@
 package org.psp.api.core.recommendation;
 
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -10,10 +12,38 @@ import java.util.List;
 public interface RecommendationService {
     Mono<Recommendation> createRecommendation(Recommendation body);
 
+    /**
+     * Returns one page of the product's recommendations ordered by recommendationId. The next page starts
+     * after the last recommendationId of the previous one; a page shorter than the limit is the last one.
+     *
+     * @param afterRecommendationId keyset cursor, only recommendations with a greater id are returned
+     * @param limit                 page size, capped by the service's maximum page size
+     */
     @GetMapping(
             value = "/recommendation/{productId}",
             produces = "application/json")
-    Flux<Recommendation> getRecommendations(@PathVariable("productId") int productId);
+    Flux<Recommendation> getRecommendations(@PathVariable("productId") int productId,
+                                            @RequestParam(value = "after", required = false) Integer afterRecommendationId,
+                                            @RequestParam(value = "limit", required = false) Integer limit);
 
-    Mono<Void> deleteRecommendations( int productId);
+    /**
+     * Returns the first page of each product's recommendations, ordered by productId and recommendationId.
+     *
+     * @param limit page size per product, capped by the service's maximum page size
+     */
+    @GetMapping(
+            value = "/recommendation",
+            produces = "application/json")
+    Flux<Recommendation> getRecommendations(@RequestParam("productId") List<Integer> productIds,
+                                            @RequestParam(value = "limit", required = false) Integer limit);
+
+    /**
+     * Deletes all recommendations of the product.
+     *
+     * @return the number of deleted recommendations
+     */
+    @DeleteMapping(
+            value = "/recommendation/{productId}",
+            produces = "application/json")
+    Mono<Long> deleteRecommendations(@PathVariable("productId") int productId);
 }
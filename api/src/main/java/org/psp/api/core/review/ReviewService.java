@@ -1,8 +1,10 @@
 package org.psp.api.core.review;
 
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -12,10 +14,38 @@ public interface ReviewService {
 
     Mono<Review> createReview(@RequestBody Review body);
 
+    /**
+     * Returns one page of the product's reviews ordered by reviewId. The next page starts after the last
+     * reviewId of the previous one; a page shorter than the limit is the last one.
+     *
+     * @param afterReviewId keyset cursor, only reviews with a greater id are returned
+     * @param limit         page size, capped by the service's maximum page size
+     */
     @GetMapping(
             value = "/review/{productId}",
             produces = "application/json")
-    Flux<Review> getReviews(@PathVariable("productId") int productId);
+    Flux<Review> getReviews(@PathVariable("productId") int productId,
+                            @RequestParam(value = "after", required = false) Integer afterReviewId,
+                            @RequestParam(value = "limit", required = false) Integer limit);
 
-    Mono<Void> deleteReview(@PathVariable("productId") int productId);
+    /**
+     * Returns the first page of each product's reviews, ordered by productId and reviewId.
+     *
+     * @param limit page size per product, capped by the service's maximum page size
+     */
+    @GetMapping(
+            value = "/review",
+            produces = "application/json")
+    Flux<Review> getReviews(@RequestParam("productId") List<Integer> productIds,
+                            @RequestParam(value = "limit", required = false) Integer limit);
+
+    /**
+     * Deletes all reviews of the product.
+     *
+     * @return the number of deleted reviews
+     */
+    @DeleteMapping(
+            value = "/review/{productId}",
+            produces = "application/json")
+    Mono<Long> deleteReview(@PathVariable("productId") int productId);
 }
@@ -0,0 +1,103 @@
+package org.psp.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.psp.api.core.event.Event;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.review.Review;
+import org.psp.util.messaging.EventCodec;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.psp.api.core.event.Event.Type.CREATE;
+
+/**
+ * Compares the JSON encoding of events, as produced by the default Spring Cloud Stream converter,
+ * with the binary {@link EventCodec} format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+    private static final TypeReference<Event<Integer, Product>> PRODUCT_EVENT = new TypeReference<>() {
+    };
+    private static final TypeReference<Event<Integer, Review>> REVIEW_EVENT = new TypeReference<>() {
+    };
+
+    private ObjectMapper mapper;
+
+    private Event<Integer, Product> productEvent;
+    private Event<Integer, Review> reviewEvent;
+
+    private byte[] productJson;
+    private byte[] productBinary;
+    private byte[] reviewJson;
+    private byte[] reviewBinary;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        productEvent = new Event<>(CREATE, 1, new Product(1, "Product name", 120, "product/172.18.0.5:8080"));
+        reviewEvent = new Event<>(CREATE, 1, new Review(1, 7, "Author", "Subject",
+                "Review content of a typical length, a few sentences about the product.", "review/172.18.0.7:8080"));
+        productJson = mapper.writeValueAsBytes(productEvent);
+        productBinary = EventCodec.encode(productEvent);
+        reviewJson = mapper.writeValueAsBytes(reviewEvent);
+        reviewBinary = EventCodec.encode(reviewEvent);
+    }
+
+    @Benchmark
+    public byte[] productJsonEncode() throws IOException {
+        return mapper.writeValueAsBytes(productEvent);
+    }
+
+    @Benchmark
+    public byte[] productBinaryEncode() {
+        return EventCodec.encode(productEvent);
+    }
+
+    @Benchmark
+    public Event<Integer, Product> productJsonDecode() throws IOException {
+        return mapper.readValue(productJson, PRODUCT_EVENT);
+    }
+
+    @Benchmark
+    public Event<Integer, Object> productBinaryDecode() {
+        return EventCodec.decode(productBinary);
+    }
+
+    @Benchmark
+    public byte[] reviewJsonEncode() throws IOException {
+        return mapper.writeValueAsBytes(reviewEvent);
+    }
+
+    @Benchmark
+    public byte[] reviewBinaryEncode() {
+        return EventCodec.encode(reviewEvent);
+    }
+
+    @Benchmark
+    public Event<Integer, Review> reviewJsonDecode() throws IOException {
+        return mapper.readValue(reviewJson, REVIEW_EVENT);
+    }
+
+    @Benchmark
+    public Event<Integer, Object> reviewBinaryDecode() {
+        return EventCodec.decode(reviewBinary);
+    }
+}
@@ -0,0 +1,65 @@
+package org.psp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.psp.api.exceptions.InvalidInputException;
+import org.psp.api.exceptions.NotFoundException;
+import org.psp.util.http.GlobalControllerExceptionHandler;
+import org.psp.util.http.HttpErrorInfo;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error answers of the core services. The "thrown" variants include creating the exception with its
+ * stack trace, which is what a failed lookup pays; the others measure the handler alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+    private GlobalControllerExceptionHandler handler;
+    private ServerHttpRequest request;
+    private NotFoundException notFound;
+    private InvalidInputException invalidInput;
+
+    @Setup
+    public void setUp() {
+        handler = new GlobalControllerExceptionHandler();
+        request = MockServerHttpRequest.get("/product/13").build();
+        notFound = new NotFoundException("No product found for productId: 13");
+        invalidInput = new InvalidInputException("Invalid productId: -1");
+    }
+
+    @Benchmark
+    public HttpErrorInfo notFound() {
+        return handler.handleNotFoundExceptions(request, notFound);
+    }
+
+    @Benchmark
+    public HttpErrorInfo notFoundThrown() {
+        return handler.handleNotFoundExceptions(request, new NotFoundException("No product found for productId: 13"));
+    }
+
+    @Benchmark
+    public HttpErrorInfo invalidInput() {
+        return handler.handleInvalidInputException(request, invalidInput);
+    }
+
+    @Benchmark
+    public HttpErrorInfo invalidInputThrown() {
+        return handler.handleInvalidInputException(request, new InvalidInputException("Invalid productId: -1"));
+    }
+}
@@ -0,0 +1,66 @@
+package org.psp.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.psp.api.composite.product.ProductAggregate;
+import org.psp.api.composite.product.RecommendationSummary;
+import org.psp.api.composite.product.ReviewSummary;
+import org.psp.api.composite.product.ServiceAddresses;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JSON encoding of a product aggregate with one page of recommendations and reviews, as returned by
+ * the composite service. The events are covered by {@link EventCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    private ObjectMapper mapper;
+    private ProductAggregate aggregate;
+    private byte[] aggregateJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        List<RecommendationSummary> recommendations = IntStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(i -> new RecommendationSummary(i, "Author " + i, i % 5, "Content " + i))
+                .toList();
+        List<ReviewSummary> reviews = IntStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(i -> new ReviewSummary(i, "Author " + i, "Subject " + i, "Content " + i))
+                .toList();
+        aggregate = new ProductAggregate(1, "Product name", 120, recommendations, reviews,
+                new ServiceAddresses("composite/172.18.0.4:8080", "product/172.18.0.5:8080",
+                        "review/172.18.0.7:8080", "recommendation/172.18.0.6:8080"), PAGE_SIZE, PAGE_SIZE);
+        aggregateJson = mapper.writeValueAsBytes(aggregate);
+    }
+
+    @Benchmark
+    public byte[] productAggregateSerialize() throws IOException {
+        return mapper.writeValueAsBytes(aggregate);
+    }
+
+    @Benchmark
+    public ProductAggregate productAggregateDeserialize() throws IOException {
+        return mapper.readValue(aggregateJson, ProductAggregate.class);
+    }
+}
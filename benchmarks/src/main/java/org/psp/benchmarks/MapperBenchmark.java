@@ -0,0 +1,142 @@
+package org.psp.benchmarks;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.recommendation.Recommendation;
+import org.psp.api.core.review.Review;
+import org.psp.core.product.persistence.ProductEntity;
+import org.psp.core.product.services.ProductMapper;
+import org.psp.core.recommendation.persistence.RecommendationEntity;
+import org.psp.core.recommendation.service.RecommendationMapper;
+import org.psp.core.review.persistence.ReviewEntity;
+import org.psp.core.review.service.ReviewMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The MapStruct mappers of the core services, for single items and for lists of one page of 20.
+ * ProductMapper has no list methods, its list variants map the items one by one like the batch
+ * lookups of the product service do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private static final int LIST_SIZE = 20;
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+    private final RecommendationMapper recommendationMapper = Mappers.getMapper(RecommendationMapper.class);
+    private final ReviewMapper reviewMapper = Mappers.getMapper(ReviewMapper.class);
+
+    private Product product;
+    private ProductEntity productEntity;
+    private List<Product> products;
+    private List<ProductEntity> productEntities;
+    private Recommendation recommendation;
+    private RecommendationEntity recommendationEntity;
+    private List<Recommendation> recommendations;
+    private List<RecommendationEntity> recommendationEntities;
+    private Review review;
+    private ReviewEntity reviewEntity;
+    private List<Review> reviews;
+    private List<ReviewEntity> reviewEntities;
+
+    @Setup
+    public void setUp() {
+        product = new Product(1, "Product name", 120, null);
+        productEntity = productMapper.apiToEntity(product);
+        products = IntStream.rangeClosed(1, LIST_SIZE)
+                .mapToObj(i -> new Product(i, "Product " + i, i, null))
+                .toList();
+        productEntities = products.stream().map(productMapper::apiToEntity).toList();
+
+        recommendation = new Recommendation(1, 1, "Author", 4, "Content", null);
+        recommendationEntity = recommendationMapper.apiToEntity(recommendation);
+        recommendations = IntStream.rangeClosed(1, LIST_SIZE)
+                .mapToObj(i -> new Recommendation(1, i, "Author " + i, i % 5, "Content " + i, null))
+                .toList();
+        recommendationEntities = recommendationMapper.apiListToEntityList(recommendations);
+
+        review = new Review(1, 1, "Author", "Subject", "Content", null);
+        reviewEntity = reviewMapper.apiToEntity(review);
+        reviews = IntStream.rangeClosed(1, LIST_SIZE)
+                .mapToObj(i -> new Review(1, i, "Author " + i, "Subject " + i, "Content " + i, null))
+                .toList();
+        reviewEntities = reviewMapper.apiListToEntity(reviews);
+    }
+
+    @Benchmark
+    public ProductEntity productApiToEntity() {
+        return productMapper.apiToEntity(product);
+    }
+
+    @Benchmark
+    public Product productEntityToApi() {
+        return productMapper.entityToApi(productEntity);
+    }
+
+    @Benchmark
+    public List<ProductEntity> productListApiToEntity() {
+        return products.stream().map(productMapper::apiToEntity).toList();
+    }
+
+    @Benchmark
+    public List<Product> productListEntityToApi() {
+        return productEntities.stream().map(productMapper::entityToApi).toList();
+    }
+
+    @Benchmark
+    public RecommendationEntity recommendationApiToEntity() {
+        return recommendationMapper.apiToEntity(recommendation);
+    }
+
+    @Benchmark
+    public Recommendation recommendationEntityToApi() {
+        return recommendationMapper.entityToApi(recommendationEntity);
+    }
+
+    @Benchmark
+    public List<RecommendationEntity> recommendationListApiToEntity() {
+        return recommendationMapper.apiListToEntityList(recommendations);
+    }
+
+    @Benchmark
+    public List<Recommendation> recommendationListEntityToApi() {
+        return recommendationMapper.entityListToApiList(recommendationEntities);
+    }
+
+    @Benchmark
+    public ReviewEntity reviewApiToEntity() {
+        return reviewMapper.apiToEntity(review);
+    }
+
+    @Benchmark
+    public Review reviewEntityToApi() {
+        return reviewMapper.entityToApi(reviewEntity);
+    }
+
+    @Benchmark
+    public List<ReviewEntity> reviewListApiToEntity() {
+        return reviewMapper.apiListToEntity(reviews);
+    }
+
+    @Benchmark
+    public List<Review> reviewListEntityToApi() {
+        return reviewMapper.entityListToApiList(reviewEntities);
+    }
+}
@@ -0,0 +1,156 @@
+package org.psp.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationProvider;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContext;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContextHolder;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
+import org.springframework.util.FileSystemUtils;
+import sample.config.AuthorizationServerConfig;
+import sample.jose.JwkStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Client credentials tokens per second issued by the authorization server for the writer and reader
+ * clients: scope checks, JWT signing with the configured key and saving the authorization, without the
+ * HTTP and client authentication in front of it. findByToken looks a token up among the stored
+ * authorizations, as introspection and revocation do; the default in-memory service scans all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TokenIssuanceBenchmark {
+    private static final int STORED_AUTHORIZATIONS = 10_000;
+
+    @Param({"writer", "reader"})
+    public String client;
+
+    @Param({"RS256", "ES256"})
+    public String algorithm;
+
+    @Param({"expiring", "in-memory"})
+    public String store;
+
+    private Path keyDirectory;
+    private OAuth2AuthorizationService authorizationService;
+    private OAuth2ClientCredentialsAuthenticationProvider provider;
+    private OAuth2ClientCredentialsAuthenticationToken request;
+    private String storedToken;
+
+    @Setup
+    public void setUp() throws IOException {
+        AuthorizationServerConfig config = new AuthorizationServerConfig();
+        keyDirectory = Files.createTempDirectory("benchmark-keys");
+        JwkStore jwkStore = config.jwkStore(keyDirectory.resolve("jwks.json"), algorithm, Duration.ofDays(30),
+                Duration.ofHours(2));
+        JwtGenerator jwtGenerator = new JwtGenerator(config.jwtEncoder(jwkStore));
+        jwtGenerator.setJwtCustomizer(config.signingAlgorithmCustomizer(jwkStore));
+
+        authorizationService = "expiring".equals(store)
+                ? config.authorizationService(1_000_000, Duration.ofMinutes(5), new SimpleMeterRegistry())
+                : new InMemoryOAuth2AuthorizationService();
+        provider = new OAuth2ClientCredentialsAuthenticationProvider(authorizationService, jwtGenerator);
+
+        RegisteredClient registeredClient = config.registeredClientRepository().findByClientId(client);
+        Set<String> scopes = registeredClient.getScopes().stream()
+                .filter(scope -> !OidcScopes.OPENID.equals(scope))
+                .collect(Collectors.toSet());
+        request = new OAuth2ClientCredentialsAuthenticationToken(new OAuth2ClientAuthenticationToken(
+                registeredClient, ClientAuthenticationMethod.CLIENT_SECRET_BASIC, null), scopes, null);
+
+        Instant now = Instant.now();
+        for (int i = 0; i < STORED_AUTHORIZATIONS; i++) {
+            storedToken = "token-" + i;
+            authorizationService.save(OAuth2Authorization.withRegisteredClient(registeredClient)
+                    .id("authorization-" + i)
+                    .principalName(client)
+                    .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                    .authorizedScopes(scopes)
+                    .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, storedToken, now,
+                            now.plus(Duration.ofHours(1))))
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(keyDirectory);
+    }
+
+    @Benchmark
+    public Authentication issue(Issuer issuer) {
+        return provider.authenticate(request);
+    }
+
+    @Benchmark
+    public OAuth2Authorization findByToken() {
+        return authorizationService.findByToken(storedToken, OAuth2TokenType.ACCESS_TOKEN);
+    }
+
+    /**
+     * The issuer of the tokens, which the token endpoint sets for the request thread.
+     */
+    @State(Scope.Thread)
+    public static class Issuer {
+        @Setup
+        public void setUp() {
+            AuthorizationServerSettings settings = AuthorizationServerSettings.builder()
+                    .issuer("http://auth-server:9999")
+                    .build();
+            AuthorizationServerContextHolder.setContext(new AuthorizationServerContext() {
+                @Override
+                public String getIssuer() {
+                    return settings.getIssuer();
+                }
+
+                @Override
+                public AuthorizationServerSettings getAuthorizationServerSettings() {
+                    return settings;
+                }
+            });
+        }
+
+        @TearDown
+        public void tearDown() {
+            AuthorizationServerContextHolder.resetContext();
+        }
+    }
+}
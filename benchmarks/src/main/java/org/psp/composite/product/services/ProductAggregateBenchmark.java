@@ -0,0 +1,67 @@
+package org.psp.composite.product.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.psp.api.composite.product.ProductAggregate;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.recommendation.Recommendation;
+import org.psp.api.core.review.Review;
+import org.psp.util.http.ServiceUtil;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Assembly of a product aggregate from the answers of the core services. Lives in the package of
+ * {@link ProductCompositeServiceImpl} to reach the package-private createProductAggregate. With the
+ * page size of 20, 21 items exercise the path that cuts the lists and sets the cursors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductAggregateBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "5", "21"})
+    public int items;
+
+    private ProductCompositeServiceImpl service;
+    private Product product;
+    private List<Recommendation> recommendations;
+    private List<Review> reviews;
+
+    @Setup
+    public void setUp() {
+        ProductAggregateCache cache = new ProductAggregateCache(1, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        service = new ProductCompositeServiceImpl(new ServiceUtil("7000"), null, cache, 200, PAGE_SIZE, 100);
+        product = new Product(1, "Product name", 120, "product/172.18.0.5:8080");
+        recommendations = IntStream.rangeClosed(1, items)
+                .mapToObj(i -> new Recommendation(1, i, "Author " + i, i % 5, "Content " + i,
+                        "recommendation/172.18.0.6:8080"))
+                .toList();
+        reviews = IntStream.rangeClosed(1, items)
+                .mapToObj(i -> new Review(1, i, "Author " + i, "Subject " + i, "Content " + i,
+                        "review/172.18.0.7:8080"))
+                .toList();
+    }
+
+    @Benchmark
+    public ProductAggregate createProductAggregate() {
+        return service.createProductAggregate(product, recommendations, reviews, "composite/172.18.0.4:8080");
+    }
+}
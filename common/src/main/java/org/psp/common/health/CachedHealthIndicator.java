@@ -0,0 +1,49 @@
+package org.psp.common.health;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Health of a downstream service as last checked in the background, so that probes are answered from
+ * memory instead of fanning out to the service. The check runs right away and then every interval; a
+ * check that takes longer than the timeout reports the service as down. The answer is thus at most
+ * interval plus timeout old, and unknown until the first check completes. Changes of the status are
+ * logged once.
+ */
+public class CachedHealthIndicator implements ReactiveHealthIndicator, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(CachedHealthIndicator.class);
+
+    private final AtomicReference<Health> last = new AtomicReference<>(Health.unknown().build());
+    private final Disposable refresher;
+
+    public CachedHealthIndicator(String name, Mono<Health> check, Duration interval, Duration timeout) {
+        this.refresher = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> check.timeout(timeout)
+                        .onErrorResume(ex -> Mono.just(Health.down().withException(ex).build())))
+                .subscribe(health -> {
+                    Health previous = last.getAndSet(health);
+                    if (!previous.getStatus().equals(health.getStatus())) {
+                        LOG.info("Health of {} changed from {} to {}", name, previous.getStatus(), health.getStatus());
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Health> health() {
+        return Mono.just(last.get());
+    }
+
+    @Override
+    public void close() {
+        refresher.dispose();
+    }
+}
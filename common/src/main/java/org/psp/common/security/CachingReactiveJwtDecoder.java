@@ -0,0 +1,104 @@
+package org.psp.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Decoder that remembers the tokens it has validated, so a client reusing its token only pays for the
+ * signature check the first time. Tokens are cached by their SHA-256 hash until they expire and tokens
+ * without an expiry are not cached; failed tokens are never cached and go through the delegate every
+ * time. Hit, miss and eviction counters are exposed under the cache name "jwt", the hit rate since the
+ * start as jwt.cache.hit.ratio.
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+    private static final Logger LOG = LoggerFactory.getLogger(CachingReactiveJwtDecoder.class);
+
+    static final String CACHE_NAME = "jwt";
+
+    private final ReactiveJwtDecoder delegate;
+    private final Supplier<Instant> clock;
+    private final Cache<ByteBuffer, Jwt> cache;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maxSize, MeterRegistry meterRegistry) {
+        this(delegate, maxSize, meterRegistry, Instant::now, Ticker.systemTicker());
+    }
+
+    CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maxSize, MeterRegistry meterRegistry,
+                              Supplier<Instant> clock, Ticker ticker) {
+        LOG.info("Creates a validated token cache with max size = {}", maxSize);
+        this.delegate = delegate;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilExpiry())
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("jwt.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of tokens found in the validated token cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+        return Mono.defer(() -> {
+            ByteBuffer key = hash(token);
+            Jwt cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return delegate.decode(token).doOnNext(jwt -> {
+                if (jwt.getExpiresAt() != null) {
+                    cache.put(key, jwt);
+                }
+            });
+        });
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private class UntilExpiry implements Expiry<ByteBuffer, Jwt> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Jwt jwt, long currentTime) {
+            Instant now = clock.get();
+            return jwt.getExpiresAt().isAfter(now) ? Duration.between(now, jwt.getExpiresAt()).toNanos() : 0;
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.psp.common.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+@Configuration
+public class JwtDecoderConfiguration {
+
+    @Bean
+    RefreshingJwkSource jwkSource(@Value("${app.jwt.jwk-set-uri}") String jwkSetUri,
+                                  @Value("${app.jwt.jwks.refresh-interval:5m}") Duration refreshInterval,
+                                  @Value("${app.jwt.jwks.min-refresh-interval:30s}") Duration minRefreshInterval) {
+        return new RefreshingJwkSource(WebClient.create(), jwkSetUri, refreshInterval, minRefreshInterval);
+    }
+
+    @Bean
+    ReactiveJwtDecoder jwtDecoder(RefreshingJwkSource jwkSource,
+                                  @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
+                                  @Value("${app.jwt.cache.max-size:10000}") long maxSize,
+                                  MeterRegistry meterRegistry) {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withJwkSource(jwkSource)
+                .jwsAlgorithm(SignatureAlgorithm.RS256)
+                .jwsAlgorithm(SignatureAlgorithm.ES256)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+        return new CachingReactiveJwtDecoder(decoder, maxSize, meterRegistry);
+    }
+}
@@ -0,0 +1,145 @@
+package org.psp.common.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Source of the issuer's signing keys for the JWT decoder. The key set is fetched once, refreshed in
+ * the background every refresh interval, and refetched on demand when a token is signed with a key that
+ * is not in it, for example right after a key rotation. On-demand fetches run at most once per minimum
+ * refresh interval however many tokens with unknown keys arrive, so forged key ids can't turn into a
+ * flood of requests to the issuer; concurrent callers share one fetch. Fetches are conditional on the
+ * ETag of the last key set, so an unchanged set is not transferred again.
+ */
+public class RefreshingJwkSource implements Function<SignedJWT, Flux<JWK>>, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshingJwkSource.class);
+
+    private final Mono<JWKSet> fetch;
+    private final long minRefreshIntervalNanos;
+    private final LongSupplier clock;
+    private final AtomicReference<JWKSet> current = new AtomicReference<>();
+    private final AtomicReference<Mono<JWKSet>> inFlight = new AtomicReference<>();
+    private final Disposable refresher;
+
+    private volatile long lastFetch;
+    private volatile boolean fetched;
+
+    public RefreshingJwkSource(WebClient webClient, String jwkSetUri, Duration refreshInterval,
+                               Duration minRefreshInterval) {
+        this(conditionalFetch(webClient, jwkSetUri), refreshInterval, minRefreshInterval, System::nanoTime);
+        LOG.info("Fetches signing keys from {}, refreshed every {}", jwkSetUri, refreshInterval);
+    }
+
+    RefreshingJwkSource(Mono<JWKSet> fetch, Duration refreshInterval, Duration minRefreshInterval,
+                        LongSupplier clock) {
+        this.fetch = fetch;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+        this.clock = clock;
+        this.refresher = Flux.interval(refreshInterval, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh().onErrorResume(ex -> Mono.empty()))
+                .subscribe();
+    }
+
+    @Override
+    public Flux<JWK> apply(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        JWKSet keys = current.get();
+        if (keys != null) {
+            List<JWK> selected = selector.select(keys);
+            if (!selected.isEmpty()) {
+                return Flux.fromIterable(selected);
+            }
+        }
+        return refreshOnDemand().flatMapIterable(selector::select);
+    }
+
+    @Override
+    public void close() {
+        refresher.dispose();
+    }
+
+    private Mono<JWKSet> refreshOnDemand() {
+        return Mono.defer(() -> {
+            if (inFlight.get() == null && fetched && clock.getAsLong() - lastFetch < minRefreshIntervalNanos) {
+                LOG.debug("Signing key not found, the key set was fetched too recently to fetch it again");
+                return Mono.justOrEmpty(current.get());
+            }
+            return refresh();
+        });
+    }
+
+    /**
+     * Fetches the key set, joining the fetch in flight if there is one.
+     */
+    Mono<JWKSet> refresh() {
+        return Mono.defer(() -> {
+            Mono<JWKSet> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            Mono<JWKSet> started = Mono.defer(() -> {
+                        lastFetch = clock.getAsLong();
+                        fetched = true;
+                        return fetch;
+                    })
+                    .doOnNext(keys -> {
+                        LOG.debug("Fetched {} signing keys", keys.size());
+                        current.set(keys);
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(current::get))
+                    .doOnError(ex -> LOG.warn("Can't fetch the signing keys: {}", ex.toString()))
+                    .doOnTerminate(() -> inFlight.set(null))
+                    .cache();
+            return inFlight.compareAndSet(null, started) ? started : refresh();
+        });
+    }
+
+    /**
+     * Fetches the key set unless it has not changed since the last fetch, in which case it completes empty.
+     */
+    private static Mono<JWKSet> conditionalFetch(WebClient webClient, String jwkSetUri) {
+        AtomicReference<String> etag = new AtomicReference<>();
+        return Mono.defer(() -> webClient.get().uri(jwkSetUri)
+                .headers(headers -> {
+                    if (etag.get() != null) {
+                        headers.setIfNoneMatch(etag.get());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+                        return response.releaseBody().then(Mono.empty());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createError();
+                    }
+                    etag.set(response.headers().asHttpHeaders().getETag());
+                    return response.bodyToMono(String.class).map(RefreshingJwkSource::parse);
+                }));
+    }
+
+    private static JWKSet parse(String body) {
+        try {
+            return JWKSet.parse(body);
+        } catch (ParseException ex) {
+            throw new IllegalStateException("Invalid key set: " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.psp.common.health;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachedHealthIndicatorTests {
+    private final AtomicInteger checks = new AtomicInteger();
+
+    private CachedHealthIndicator indicator;
+
+    @AfterEach
+    void tearDown() {
+        indicator.close();
+    }
+
+    @Test
+    void healthIsServedFromTheLastCheck() throws InterruptedException {
+        indicator = new CachedHealthIndicator("product", counted(Mono.just(Health.up().build())),
+                Duration.ofHours(1), Duration.ofSeconds(1));
+
+        assertEquals(Status.UP, awaitStatus(Status.UP));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Status.UP, indicator.health().block().getStatus());
+        }
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void healthIsUnknownUntilTheFirstCheck() {
+        indicator = new CachedHealthIndicator("product", Mono.never(), Duration.ofHours(1), Duration.ofHours(1));
+
+        assertEquals(Status.UNKNOWN, indicator.health().block().getStatus());
+    }
+
+    @Test
+    void slowCheckIsReportedDown() throws InterruptedException {
+        indicator = new CachedHealthIndicator("product", Mono.never(), Duration.ofHours(1), Duration.ofMillis(50));
+
+        assertEquals(Status.DOWN, awaitStatus(Status.DOWN));
+        assertTrue(indicator.health().block().getDetails().get("error").toString()
+                .startsWith(TimeoutException.class.getName()));
+    }
+
+    @Test
+    void healthIsCheckedAgainEveryInterval() throws InterruptedException {
+        indicator = new CachedHealthIndicator("product",
+                counted(Mono.fromSupplier(() -> checks.get() < 3 ? Health.down().build() : Health.up().build())),
+                Duration.ofMillis(20), Duration.ofSeconds(1));
+
+        assertEquals(Status.UP, awaitStatus(Status.UP));
+        assertTrue(checks.get() >= 3);
+    }
+
+    private Mono<Health> counted(Mono<Health> check) {
+        return Mono.defer(() -> {
+            checks.incrementAndGet();
+            return check;
+        });
+    }
+
+    private Status awaitStatus(Status expected) throws InterruptedException {
+        Status status = indicator.health().block().getStatus();
+        for (int i = 0; i < 500 && !expected.equals(status); i++) {
+            Thread.sleep(10);
+            status = indicator.health().block().getStatus();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,101 @@
+package org.psp.common.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingReactiveJwtDecoderTests {
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+    private final AtomicLong ticker = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+    private Clock clock;
+    private CachingReactiveJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = Clock.fixed(START, ZoneOffset.UTC);
+        decoder = new CachingReactiveJwtDecoder(delegate(), 100, meterRegistry, () -> clock.instant(), ticker::get);
+    }
+
+    @Test
+    void tokenIsValidatedOnlyOnce() {
+        Jwt first = decoder.decode("valid").block();
+        Jwt second = decoder.decode("valid").block();
+
+        assertEquals("writer", second.getSubject());
+        assertEquals(first, second);
+        assertEquals(1, delegateCalls.get());
+        assertEquals(0.5, meterRegistry.get("jwt.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void expiredTokenIsValidatedAgain() {
+        decoder.decode("valid").block();
+
+        advance(Duration.ofMinutes(5).minusSeconds(1));
+        decoder.decode("valid").block();
+        assertEquals(1, delegateCalls.get());
+
+        advance(Duration.ofSeconds(1));
+        decoder.decode("valid").block();
+        assertEquals(2, delegateCalls.get());
+    }
+
+    @Test
+    void invalidTokenIsNotCached() {
+        assertThrows(BadJwtException.class, () -> decoder.decode("invalid").block());
+        assertThrows(BadJwtException.class, () -> decoder.decode("invalid").block());
+
+        assertEquals(2, delegateCalls.get());
+    }
+
+    @Test
+    void tokenWithoutExpiryIsNotCached() {
+        decoder.decode("eternal").block();
+        decoder.decode("eternal").block();
+
+        assertEquals(2, delegateCalls.get());
+    }
+
+    private void advance(Duration duration) {
+        clock = Clock.offset(clock, duration);
+        ticker.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+    }
+
+    private ReactiveJwtDecoder delegate() {
+        return token -> Mono.defer(() -> {
+            delegateCalls.incrementAndGet();
+            if (token.equals("invalid")) {
+                return Mono.error(new BadJwtException("Invalid signature"));
+            }
+            Jwt.Builder jwt = Jwt.withTokenValue(token)
+                    .header("alg", "RS256")
+                    .subject("writer")
+                    .issuedAt(START);
+            if (token.equals("valid")) {
+                jwt.expiresAt(START.plus(Duration.ofMinutes(5)));
+            }
+            return Mono.just(jwt.build());
+        });
+    }
+}
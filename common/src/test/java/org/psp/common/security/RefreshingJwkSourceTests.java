@@ -0,0 +1,136 @@
+package org.psp.common.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RefreshingJwkSourceTests {
+    private static JWK first;
+    private static JWK second;
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicReference<JWKSet> published = new AtomicReference<>();
+    private final AtomicLong clock = new AtomicLong();
+
+    private RefreshingJwkSource source;
+
+    @BeforeAll
+    static void generateKeys() throws JOSEException {
+        first = new RSAKeyGenerator(2048).keyID("first").generate().toPublicJWK();
+        second = new RSAKeyGenerator(2048).keyID("second").generate().toPublicJWK();
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.close();
+    }
+
+    @Test
+    void knownKeyIsServedWithoutFetching() {
+        source = source(Duration.ZERO);
+        published.set(new JWKSet(first));
+
+        assertEquals(List.of(first), keys("first"));
+        assertEquals(List.of(first), keys("first"));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void unknownKeyIsFetchedAtMostOncePerMinimumInterval() {
+        source = source(Duration.ZERO);
+        published.set(new JWKSet(first));
+        keys("first");
+
+        published.set(new JWKSet(List.of(first, second)));
+        assertTrue(keys("second").isEmpty());
+        assertTrue(keys("forged").isEmpty());
+        assertEquals(1, fetches.get());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(List.of(second), keys("second"));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void concurrentCallersShareOneFetch() {
+        source = source(Duration.ofMillis(200));
+        published.set(new JWKSet(first));
+
+        List<List<JWK>> results = Flux.range(0, 5)
+                .flatMap(i -> source.apply(jwt("first")).collectList())
+                .collectList()
+                .block();
+
+        assertEquals(5, results.size());
+        results.forEach(keys -> assertEquals(List.of(first), keys));
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void unchangedKeySetIsNotTransferredAgain() {
+        List<String> ifNoneMatch = new ArrayList<>();
+        WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+            ifNoneMatch.add(request.headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+            if ("\"1\"".equals(request.headers().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.ETAG, "\"1\"")
+                    .body(new JWKSet(first).toString())
+                    .build());
+        }).build();
+        source = new RefreshingJwkSource(webClient, "http://auth-server/oauth2/jwks", Duration.ofHours(1),
+                Duration.ofSeconds(30));
+
+        assertEquals(List.of(first), keys("first"));
+        assertEquals(new JWKSet(first).toString(), source.refresh().block().toString());
+
+        assertEquals(Arrays.asList(null, "\"1\""), ifNoneMatch);
+        assertEquals(List.of(first), keys("first"));
+    }
+
+    private RefreshingJwkSource source(Duration fetchLatency) {
+        Mono<JWKSet> fetch = Mono.defer(() -> {
+            fetches.incrementAndGet();
+            return Mono.delay(fetchLatency).map(tick -> published.get());
+        });
+        return new RefreshingJwkSource(fetch, Duration.ofHours(1), Duration.ofSeconds(30), clock::get);
+    }
+
+    private List<JWK> keys(String keyId) {
+        return source.apply(jwt(keyId)).collectList().block();
+    }
+
+    private static SignedJWT jwt(String keyId) {
+        return new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(),
+                new JWTClaimsSet.Builder().subject("writer").build());
+    }
+}
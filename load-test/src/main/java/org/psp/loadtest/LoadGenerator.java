@@ -0,0 +1,140 @@
+package org.psp.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Open-loop load generator: requests are started on a fixed schedule whether or not earlier ones have
+ * completed, and each latency is measured from the time the request was due rather than from the time
+ * it was sent. A system that falls behind therefore shows its queueing delay in the percentiles
+ * instead of silently lowering the offered rate (coordinated omission).
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final HttpClient client;
+    private final List<String> paths;
+    private final int products;
+
+    public LoadGenerator(int port, List<String> paths, int products, int maxConnections) {
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = HttpClient.create(connections).baseUrl("http://localhost:" + port);
+        this.paths = paths;
+        this.products = products;
+    }
+
+    /**
+     * Sends rate requests per second for warmup, waits at most drainTimeout for the warmup answers, runs
+     * warmedUp and then sends rate requests per second for duration, which are recorded. Waits at most
+     * drainTimeout for the last recorded answers.
+     */
+    public LoadResult run(int rate, Duration warmup, Duration duration, Duration drainTimeout, Runnable warmedUp) {
+        AtomicLong inFlight = new AtomicLong();
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        send(periodNanos, warmup, inFlight, null);
+        drain(inFlight, drainTimeout);
+        warmedUp.run();
+
+        Recording recording = new Recording();
+        long measureStart = System.nanoTime();
+        long end = send(periodNanos, duration, inFlight, recording);
+        drain(inFlight, drainTimeout);
+        recording.done.set(true);
+        Duration elapsed = Duration.ofNanos(Math.max(recording.lastCompletion.get(), end) - measureStart);
+        Map<Integer, Long> statusCounts = recording.statuses.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum()));
+        return new LoadResult(rate, recording.latencies.copy(), statusCounts, recording.failures.sum(),
+                inFlight.get(), elapsed);
+    }
+
+    /**
+     * Starts a request every periodNanos for length, recorded unless recording is null, and returns the
+     * time the schedule ended.
+     */
+    private long send(long periodNanos, Duration length, AtomicLong inFlight, Recording recording) {
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        long sent = 0;
+        for (long due = start; due < end; due = start + ++sent * periodNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = due;
+            inFlight.incrementAndGet();
+            request().subscribe(status -> {
+                if (recording != null) {
+                    recording.answered(intendedStart, status);
+                }
+                inFlight.decrementAndGet();
+            }, error -> {
+                if (recording != null) {
+                    recording.failed();
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+        return end;
+    }
+
+    private static void drain(AtomicLong inFlight, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private Mono<Integer> request() {
+        String path = paths.get(ThreadLocalRandom.current().nextInt(paths.size()))
+                .replace("{id}", String.valueOf(1 + ThreadLocalRandom.current().nextInt(products)));
+        return client.get()
+                .uri(path)
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+    }
+
+    /**
+     * Answers of the measured requests; answers arriving after the drain timeout are ignored.
+     */
+    private static final class Recording {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicLong lastCompletion = new AtomicLong();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        void answered(long intendedStart, int status) {
+            long now = System.nanoTime();
+            if (!done.get()) {
+                latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - intendedStart),
+                        HIGHEST_LATENCY_MICROS));
+                statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                lastCompletion.accumulateAndGet(now, Math::max);
+            }
+        }
+
+        void failed() {
+            if (!done.get()) {
+                failures.increment();
+                lastCompletion.accumulateAndGet(System.nanoTime(), Math::max);
+            }
+        }
+    }
+}
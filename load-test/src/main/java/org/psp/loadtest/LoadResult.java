@@ -0,0 +1,32 @@
+package org.psp.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of a run. Latencies are in microseconds and include the answers with error status codes;
+ * failures are requests that got no HTTP answer at all.
+ */
+public record LoadResult(int rate, Histogram latencies, Map<Integer, Long> statuses, long failures,
+                         long unfinished, Duration elapsed) {
+
+    public void print(PrintStream out) {
+        long completed = latencies.getTotalCount();
+        out.printf("%nOffered rate:     %d req/s%n", rate);
+        out.printf("Throughput:       %.1f req/s over %.1f s%n", completed / (elapsed.toNanos() / 1e9),
+                elapsed.toNanos() / 1e9);
+        out.printf("Status codes:     %s%n", new TreeMap<>(statuses));
+        out.printf("No answer:        %d, unfinished: %d%n", failures, unfinished);
+        out.printf("Latency (ms):     p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  p99.99 %.2f  max %.2f%n",
+                percentile(50), percentile(90), percentile(99), percentile(99.9), percentile(99.99),
+                latencies.getMaxValue() / 1000.0);
+    }
+
+    private double percentile(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
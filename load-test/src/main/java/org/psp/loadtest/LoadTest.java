@@ -0,0 +1,147 @@
+package org.psp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.psp.composite.product.ProductCompositeServiceApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the composite service in-process against stand-ins for the product, recommendation and review
+ * services, with the in-memory binder instead of a broker, drives constant-rate traffic at it and prints
+ * the latency percentiles and throughput. No Docker, Eureka, broker or authorization server is needed:
+ * <pre>
+ * java -jar load-test/target/load-test-1.0-SNAPSHOT.jar --load.rate=1000 --load.duration=60s \
+ *     --load.paths=/product-composite/{id},/product-composite/{id}/reviews \
+ *     --standin.review.latency-median=20ms --standin.review.latency-p99=200ms --standin.review.error-rate=0.01
+ * </pre>
+ * Options starting with load. and standin. configure the harness, see below and {@link StandInSettings};
+ * all other options are passed to the composite, e.g. --app.aggregate-cache.max-size=0.
+ * <ul>
+ *     <li>load.rate - requests per second, default 200</li>
+ *     <li>load.warmup, load.duration - default 10s and 30s, only requests sent after the warmup count</li>
+ *     <li>load.paths - comma separated, {id} is replaced by a random product id, default /product-composite/{id}</li>
+ *     <li>load.products - product ids are drawn from 1..products, default 1000</li>
+ *     <li>load.max-connections - default 1000</li>
+ *     <li>load.histogram-file - also writes the full percentile distribution in HdrHistogram's .hgrm format</li>
+ * </ul>
+ */
+public class LoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final List<String> SERVICES = List.of("product", "recommendation", "review");
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        List<String> compositeArgs = new ArrayList<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            if (option.startsWith("load.") || option.startsWith("standin.")) {
+                String[] keyValue = option.split("=", 2);
+                options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "true");
+            } else {
+                compositeArgs.add(arg);
+            }
+        }
+
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        List<StandInServer> standIns = new ArrayList<>();
+        try {
+            Map<String, String> properties = new HashMap<>(compositeProperties());
+            for (String service : SERVICES) {
+                StandInServer standIn = new StandInServer(service, StandInSettings.from(options, service), mapper);
+                standIns.add(standIn);
+                properties.put("spring.cloud.discovery.client.simple.instances." + service + "[0].uri",
+                        "http://localhost:" + standIn.port());
+            }
+
+            try (ConfigurableApplicationContext composite = new SpringApplicationBuilder(
+                    ProductCompositeServiceApplication.class, TestChannelBinderConfiguration.class,
+                    LoadTestSecurityConfig.class)
+                    .run(withDefaults(compositeArgs, properties))) {
+                int port = ((WebServerApplicationContext) composite).getWebServer().getPort();
+                LoadResult result = run(options, port, () -> resetCircuitBreakers(composite));
+                result.print(System.out);
+                String histogramFile = options.get("load.histogram-file");
+                if (histogramFile != null) {
+                    try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(histogramFile)))) {
+                        result.latencies().outputPercentileDistribution(out, 1000.0);
+                    }
+                }
+            }
+        } finally {
+            standIns.forEach(StandInServer::close);
+        }
+    }
+
+    private static LoadResult run(Map<String, String> options, int port, Runnable warmedUp) {
+        int rate = Integer.parseInt(options.getOrDefault("load.rate", "200"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("load.warmup", "10s"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("load.duration", "30s"));
+        List<String> paths = Arrays.asList(options.getOrDefault("load.paths", "/product-composite/{id}").split(","));
+        int products = Integer.parseInt(options.getOrDefault("load.products", "1000"));
+        int maxConnections = Integer.parseInt(options.getOrDefault("load.max-connections", "1000"));
+
+        LOG.info("Sends {} req/s to {} for {} after a warmup of {}", rate, paths, duration, warmup);
+        return new LoadGenerator(port, paths, products, maxConnections)
+                .run(rate, warmup, duration, Duration.ofSeconds(30), warmedUp);
+    }
+
+    /**
+     * The stand-ins share the CPU with the composite and the load generator, so calls are slow while the
+     * JVM warms up and the circuit breakers may open during the warmup. They are closed again once the
+     * warmup answers are in, so that the measurement does not begin with rejected calls.
+     */
+    private static void resetCircuitBreakers(ConfigurableApplicationContext composite) {
+        composite.getBean(CircuitBreakerRegistry.class).getAllCircuitBreakers().forEach(circuitBreaker -> {
+            if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+                LOG.info("Closes the circuit breaker {}, {} after the warmup", circuitBreaker.getName(),
+                        circuitBreaker.getState());
+            }
+            circuitBreaker.reset();
+        });
+    }
+
+    /**
+     * Passes the harness settings as command line arguments, which take precedence over the composite's
+     * application.yml, unless the same property is given explicitly.
+     */
+    private static String[] withDefaults(List<String> args, Map<String, String> defaults) {
+        List<String> result = new ArrayList<>(args);
+        defaults.forEach((key, value) -> {
+            if (args.stream().noneMatch(arg -> arg.startsWith("--" + key + "="))) {
+                result.add("--" + key + "=" + value);
+            }
+        });
+        return result.toArray(new String[0]);
+    }
+
+    private static Map<String, String> compositeProperties() {
+        return Map.of(
+                "server.port", "0",
+                "eureka.client.enabled", "false",
+                "spring.main.allow-bean-definition-overriding", "true",
+                "spring.security.oauth2.resourceserver.jwt.issuer-uri", "",
+                "logging.level.root", "WARN",
+                "logging.level.org.psp", "WARN",
+                "logging.level.org.psp.loadtest", "INFO");
+    }
+}
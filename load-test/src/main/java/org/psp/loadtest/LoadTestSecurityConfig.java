@@ -0,0 +1,18 @@
+package org.psp.loadtest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+/**
+ * Replaces the composite's OAuth2 resource server setup, the harness runs without an authorization
+ * server. Registered explicitly by {@link LoadTest}, relying on bean definition overriding.
+ */
+public class LoadTestSecurityConfig {
+    @Bean
+    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+        http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(exchanges -> exchanges.anyExchange().permitAll());
+        return http.build();
+    }
+}
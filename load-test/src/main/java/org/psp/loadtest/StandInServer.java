@@ -0,0 +1,156 @@
+package org.psp.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.recommendation.Recommendation;
+import org.psp.api.core.review.Review;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+
+/**
+ * In-process replacement for one core service, serving the read endpoints the composite calls with
+ * generated data. Every product id exists; its recommendations and reviews have the ids 1..items.
+ * Latency is added with a timer, so slow answers cost no threads.
+ */
+public class StandInServer implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(StandInServer.class);
+
+    private final String name;
+    private final StandInSettings settings;
+    private final ObjectMapper mapper;
+    private final DisposableServer server;
+
+    public StandInServer(String name, StandInSettings settings, ObjectMapper mapper) {
+        this.name = name;
+        this.settings = settings;
+        this.mapper = mapper;
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(this::routes)
+                .bindNow();
+        LOG.info("Started the {} stand-in on port {}: {}", name, server.port(), settings);
+    }
+
+    public int port() {
+        return server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private void routes(HttpServerRoutes routes) {
+        routes.get("/actuator/health", (request, response) -> respond(response, "{\"status\":\"UP\"}"));
+        switch (name) {
+            case "product" -> routes
+                    .get("/product/{productId}", (request, response) ->
+                            reply(response, this::product, productId(request)))
+                    .get("/product", (request, response) ->
+                            reply(response, ids -> ids.stream().map(this::product).toList(), productIds(request)));
+            case "recommendation" -> routes
+                    .get("/recommendation/{productId}", (request, response) ->
+                            reply(response, id -> page(request, recommendationId -> recommendation(id, recommendationId)),
+                                    productId(request)))
+                    .get("/recommendation", (request, response) ->
+                            reply(response, ids -> ids.stream().flatMap(id -> IntStream.rangeClosed(1, settings.items())
+                                    .mapToObj(recommendationId -> recommendation(id, recommendationId))).toList(),
+                                    productIds(request)));
+            case "review" -> routes
+                    .get("/review/{productId}", (request, response) ->
+                            reply(response, id -> page(request, reviewId -> review(id, reviewId)), productId(request)))
+                    .get("/review", (request, response) ->
+                            reply(response, ids -> ids.stream().flatMap(id -> IntStream.rangeClosed(1, settings.items())
+                                    .mapToObj(reviewId -> review(id, reviewId))).toList(), productIds(request)));
+            default -> throw new IllegalArgumentException("Unknown stand-in service: " + name);
+        }
+    }
+
+    private <T> Mono<Void> reply(HttpServerResponse response, Function<T, Object> body, T input) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean fail = settings.sampleFailure(random);
+        return Mono.delay(settings.sampleLatency(random))
+                .then(Mono.defer(() -> fail
+                        ? respondError(response)
+                        : respond(response, toJson(body.apply(input)))));
+    }
+
+    private Mono<Void> respond(HttpServerResponse response, String json) {
+        return response.header(CONTENT_TYPE, "application/json").sendString(Mono.just(json)).then();
+    }
+
+    private Mono<Void> respondError(HttpServerResponse response) {
+        return response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR)
+                .header(CONTENT_TYPE, "application/json")
+                .sendString(Mono.just("{\"httpStatus\":\"INTERNAL_SERVER_ERROR\",\"message\":\"Injected failure\"}"))
+                .then();
+    }
+
+    private <T> List<T> page(HttpServerRequest request, IntFunction<T> item) {
+        QueryStringDecoder query = new QueryStringDecoder(request.uri());
+        int after = intParameter(query, "after", 0);
+        int limit = intParameter(query, "limit", settings.items());
+        return IntStream.rangeClosed(Math.max(after, 0) + 1, settings.items())
+                .limit(limit)
+                .mapToObj(item)
+                .toList();
+    }
+
+    private Product product(int productId) {
+        return new Product(productId, "Product " + productId, productId % 1000, name);
+    }
+
+    private Recommendation recommendation(int productId, int recommendationId) {
+        return new Recommendation(productId, recommendationId, "Author " + recommendationId, recommendationId % 5,
+                "Recommendation " + recommendationId + " of product " + productId, name);
+    }
+
+    private Review review(int productId, int reviewId) {
+        return new Review(productId, reviewId, "Author " + reviewId, "Subject " + reviewId,
+                "Review " + reviewId + " of product " + productId, name);
+    }
+
+    private String toJson(Object body) {
+        try {
+            return mapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static int productId(HttpServerRequest request) {
+        return Integer.parseInt(request.param("productId"));
+    }
+
+    private static List<Integer> productIds(HttpServerRequest request) {
+        List<String> values = new QueryStringDecoder(request.uri()).parameters().getOrDefault("productId", List.of());
+        return values.stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(Integer::valueOf)
+                .toList();
+    }
+
+    private static int intParameter(QueryStringDecoder query, String name, int defaultValue) {
+        List<String> values = query.parameters().get(name);
+        return values == null || values.isEmpty() ? defaultValue : Integer.parseInt(values.get(0));
+    }
+}
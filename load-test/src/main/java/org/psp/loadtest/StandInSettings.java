@@ -0,0 +1,47 @@
+package org.psp.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Behaviour of one stand-in service. Latencies follow a log-normal distribution fitted to the given
+ * median and 99th percentile, which gives the long right tail real services show; with equal values
+ * the latency is constant. Each request fails with HTTP 500 with the given probability.
+ *
+ * @param items number of recommendations or reviews each product has
+ */
+public record StandInSettings(Duration latencyMedian, Duration latencyP99, double errorRate, int items) {
+    private static final double Z_99 = 2.3263;
+
+    public static StandInSettings from(Map<String, String> options, String service) {
+        String prefix = "standin." + service + ".";
+        return new StandInSettings(
+                DurationStyle.detectAndParse(options.getOrDefault(prefix + "latency-median", "5ms")),
+                DurationStyle.detectAndParse(options.getOrDefault(prefix + "latency-p99", "25ms")),
+                Double.parseDouble(options.getOrDefault(prefix + "error-rate", "0")),
+                Integer.parseInt(options.getOrDefault(prefix + "items", "5")));
+    }
+
+    public Duration sampleLatency(RandomGenerator random) {
+        long median = latencyMedian.toNanos();
+        long p99 = latencyP99.toNanos();
+        if (median <= 0 || p99 <= median) {
+            return latencyMedian;
+        }
+        double sigma = (Math.log(p99) - Math.log(median)) / Z_99;
+        return Duration.ofNanos((long) (median * Math.exp(sigma * random.nextGaussian())));
+    }
+
+    public boolean sampleFailure(RandomGenerator random) {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    @Override
+    public String toString() {
+        return "latency p50 = " + latencyMedian.toMillis() + "ms, p99 = " + latencyP99.toMillis() + "ms, errors = "
+                + errorRate * 100 + "%, items = " + items;
+    }
+}
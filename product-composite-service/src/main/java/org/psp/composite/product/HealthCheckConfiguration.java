@@ -1,28 +1,59 @@
 package org.psp.composite.product;
 
+import org.psp.common.health.CachedHealthIndicator;
 import org.psp.composite.product.services.ProductCompositeIntegration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.CompositeReactiveHealthContributor;
+import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.ReactiveHealthContributor;
-import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
+/**
+ * Health of the core services, checked in parallel in the background every app.health.interval with a
+ * timeout of app.health.timeout, see {@link CachedHealthIndicator}.
+ */
 @Configuration
-public class HealthCheckConfiguration {
+public class HealthCheckConfiguration implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(HealthCheckConfiguration.class);
+
     @Autowired
     ProductCompositeIntegration integration;
 
+    @Value("${app.health.interval:10s}")
+    Duration interval;
+
+    @Value("${app.health.timeout:3s}")
+    Duration timeout;
+
+    private final Map<String, CachedHealthIndicator> registry = new LinkedHashMap<>();
+
     @Bean
     ReactiveHealthContributor coreServices() {
-        final Map<String, ReactiveHealthIndicator> registry = new LinkedHashMap<>();
-        registry.put("product", () -> integration.getProductHealth());
-        registry.put("recommendation", () -> integration.getRecommendationHealth());
-        registry.put("review", () -> integration.getReviewHealth());
+        LOG.info("Checks the health of the core services every {} with a timeout of {}", interval, timeout);
+        register("product", () -> integration.getProductHealth());
+        register("recommendation", () -> integration.getRecommendationHealth());
+        register("review", () -> integration.getReviewHealth());
 
         return CompositeReactiveHealthContributor.fromMap(registry);
     }
+
+    @Override
+    public void destroy() {
+        registry.values().forEach(CachedHealthIndicator::close);
+    }
+
+    private void register(String name, Supplier<Mono<Health>> check) {
+        registry.put(name, new CachedHealthIndicator(name, Mono.defer(check), interval, timeout));
+    }
 }
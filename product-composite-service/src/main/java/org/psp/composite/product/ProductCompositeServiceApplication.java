@@ -1,5 +1,8 @@
 package org.psp.composite.product;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import io.swagger.v3.oas.models.ExternalDocumentation;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
@@ -7,16 +10,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
+import org.psp.composite.product.services.DownstreamProperties;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @SpringBootApplication
 @ComponentScan("org.psp")
+@EnableConfigurationProperties(DownstreamProperties.class)
 public class ProductCompositeServiceApplication {
 
     private static Logger LOG = LoggerFactory.getLogger(ProductCompositeServiceApplication.class);
@@ -31,10 +42,20 @@ public class ProductCompositeServiceApplication {
         this.taskQueueSize = taskQueueSize;
     }
 
+    /**
+     * Runs the blocking sends to the binder. Backed by a plain thread pool rather than a bounded elastic
+     * scheduler, so that its active threads and queue depth can be exposed as executor metrics; the queue
+     * holds taskQueueSize tasks per thread, as the bounded elastic scheduler did.
+     */
     @Bean
-    public Scheduler publishEventScheduler() {
+    public Scheduler publishEventScheduler(MeterRegistry meterRegistry) {
         LOG.info("Creates a messagingScheduler with connection pool size = {}", threadPoolSize);
-        return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "publish-pool");
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threadPoolSize * taskQueueSize),
+                new CustomizableThreadFactory("publish-pool-"));
+        executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, "publish-pool", "composite", Tags.empty()).bindTo(meterRegistry);
+        return Schedulers.fromExecutorService(executor, "publish-pool");
     }
 
     @Bean
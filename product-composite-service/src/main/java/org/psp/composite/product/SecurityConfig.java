@@ -19,6 +19,7 @@ public class SecurityConfig {
                 .pathMatchers("/openapi/**").permitAll()
                 .pathMatchers("/webjars/**").permitAll()
                 .pathMatchers("/actuator/**").permitAll()
+                .pathMatchers(POST, "/product-composite/batch").hasAuthority("SCOPE_product:read")
                 .pathMatchers(POST, "/product-composite/**").hasAuthority("SCOPE_product:write")
                 .pathMatchers(DELETE, "/product-composite/**").hasAuthority("SCOPE_product:write")
                 .pathMatchers(GET, "/product-composite/**").hasAuthority("SCOPE_product:read")
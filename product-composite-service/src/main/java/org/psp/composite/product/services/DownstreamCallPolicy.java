@@ -0,0 +1,195 @@
+package org.psp.composite.product.services;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Applies a deadline and, optionally, a hedged second attempt to the calls made to one downstream service.
+ * Both follow the latency of the recent calls, recorded in a per-dependency timer: the hedge delay is the
+ * configured latency percentile, the deadline a multiple of a higher one, bounded by the configured minimum
+ * and maximum timeout. Every attempt is timed from the start of the call until it ends, also when it is
+ * cancelled because the other attempt won or the deadline passed, so slow attempts are never left out of
+ * the percentiles. Through the load balanced WebClient the hedged attempt goes to the next instance
+ * registered in Eureka, and whichever attempt signals first wins.
+ * <p>
+ * Each call runs inside the dependency's circuit breaker, and each attempt takes its own permit of the
+ * dependency's bulkhead, so that the bulkhead limits the requests actually in flight. While the circuit is
+ * open, or all bulkhead permits are taken, a call fails at once without reaching the service, so callers
+ * fall back right away instead of waiting out the deadline. A hedged attempt without a free permit is not
+ * sent, the call keeps waiting for the first one.
+ */
+public class DownstreamCallPolicy {
+    private static final Logger LOG = LoggerFactory.getLogger(DownstreamCallPolicy.class);
+
+    private final String dependency;
+    private final DownstreamProperties.Settings settings;
+    private final Timer latencyTimer;
+    private final Counter hedgeCounter;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public DownstreamCallPolicy(String dependency, DownstreamProperties.Settings settings,
+                                CircuitBreaker circuitBreaker, Bulkhead bulkhead, MeterRegistry meterRegistry) {
+        LOG.info("Creates a call policy for {} with timeout = {}..{}, hedging = {}, max concurrent calls = {}",
+                dependency, settings.minTimeout(), settings.timeout(), settings.hedgeEnabled(),
+                bulkhead.getBulkheadConfig().getMaxConcurrentCalls());
+        this.dependency = dependency;
+        this.settings = settings;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                LOG.warn("Circuit breaker for {}: {}", dependency, event.getStateTransition()));
+        this.latencyTimer = Timer.builder("composite.downstream.hedging.latency")
+                .description("Latency of single attempts, used to compute the hedge delay and the deadline")
+                .tag("dependency", dependency)
+                .publishPercentiles(settings.hedgePercentile(), settings.deadlinePercentile())
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedgeCounter = Counter.builder("composite.downstream.hedges")
+                .description("Hedged attempts sent to a downstream service")
+                .tag("dependency", dependency)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> mono(Supplier<Mono<T>> call) {
+        return flux(() -> call.get().flux()).singleOrEmpty();
+    }
+
+    public <T> Flux<T> flux(Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            HistogramSnapshot snapshot = latencyTimer.takeSnapshot();
+            Flux<T> primary = permitted(timed(call, start));
+            Duration hedgeDelay = hedgeDelay(snapshot);
+            Flux<T> attempts = hedgeDelay == null ? primary : Flux.firstWithSignal(primary,
+                    Mono.delay(hedgeDelay).thenMany(Flux.defer(() -> {
+                        if (!bulkhead.tryAcquirePermission()) {
+                            LOG.debug("No answer from {} within {}, but no permit for a hedged request",
+                                    dependency, hedgeDelay);
+                            return Flux.never();
+                        }
+                        LOG.debug("No answer from {} within {}, sends a hedged request", dependency, hedgeDelay);
+                        hedgeCounter.increment();
+                        return released(timed(call, start));
+                    })));
+            return guarded(attempts, timeout(snapshot));
+        });
+    }
+
+    /**
+     * Applies only the configured maximum timeout as deadline. Used for batch calls, whose latency says
+     * nothing about single lookups and which are too expensive to send twice.
+     */
+    public <T> Flux<T> deadline(Supplier<Flux<T>> call) {
+        return guarded(permitted(Flux.defer(call)), settings.timeout());
+    }
+
+    /**
+     * The deadline is inside the circuit breaker, so that timeouts count as failures. It covers the whole
+     * stream, every element waits for the same timer, and cancels the attempts when it passes.
+     */
+    private <T> Flux<T> guarded(Flux<T> attempts, Duration timeout) {
+        return Flux.defer(() -> {
+                    Mono<Long> deadline = Mono.delay(timeout).cache();
+                    return attempts.timeout(deadline, element -> deadline, Flux.error(() ->
+                            new TimeoutException("No answer from " + dependency + " within " + timeout)));
+                })
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    /**
+     * Runs the attempt with a bulkhead permit.
+     */
+    private <T> Flux<T> permitted(Flux<T> attempt) {
+        return Flux.defer(() -> bulkhead.tryAcquirePermission()
+                ? released(attempt)
+                : Flux.error(BulkheadFullException.createBulkheadFullException(bulkhead)));
+    }
+
+    /**
+     * Releases the permit of the attempt when it ends or is cancelled.
+     */
+    private <T> Flux<T> released(Flux<T> attempt) {
+        return onEnd(attempt, bulkhead::onComplete);
+    }
+
+    /**
+     * Times an attempt from the start of the call, so that a hedged attempt counts the hedge delay as well.
+     */
+    private <T> Flux<T> timed(Supplier<Flux<T>> call, long start) {
+        return onEnd(Flux.defer(call), () -> latencyTimer.record(System.nanoTime() - start, NANOSECONDS));
+    }
+
+    /**
+     * Runs the action once, when the attempt ends or is cancelled. Unlike doFinally, the action runs before
+     * the end is passed on, so that a call started right after finds the permit free and the attempt
+     * recorded.
+     */
+    private static <T> Flux<T> onEnd(Flux<T> attempt, Runnable action) {
+        return Flux.defer(() -> {
+            AtomicBoolean ended = new AtomicBoolean();
+            Runnable once = () -> {
+                if (ended.compareAndSet(false, true)) {
+                    action.run();
+                }
+            };
+            return attempt.doOnTerminate(once).doOnCancel(once);
+        });
+    }
+
+    /**
+     * Returns null while hedging is disabled or there are no recent samples to base the delay on.
+     */
+    private Duration hedgeDelay(HistogramSnapshot snapshot) {
+        if (!settings.hedgeEnabled()) {
+            return null;
+        }
+        Duration observed = percentile(snapshot, settings.hedgePercentile());
+        if (observed == null) {
+            return null;
+        }
+        return observed.compareTo(settings.hedgeMinDelay()) > 0 ? observed : settings.hedgeMinDelay();
+    }
+
+    /**
+     * Returns the maximum timeout while there are no recent samples to base the deadline on.
+     */
+    private Duration timeout(HistogramSnapshot snapshot) {
+        Duration observed = percentile(snapshot, settings.deadlinePercentile());
+        if (observed == null) {
+            return settings.timeout();
+        }
+        Duration timeout = Duration.ofNanos((long) (observed.toNanos() * settings.deadlineFactor()));
+        if (timeout.compareTo(settings.minTimeout()) < 0) {
+            return settings.minTimeout();
+        }
+        return timeout.compareTo(settings.timeout()) < 0 ? timeout : settings.timeout();
+    }
+
+    private static Duration percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile && value.value() > 0) {
+                return Duration.ofNanos((long) value.value(NANOSECONDS));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package org.psp.composite.product.services;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Per-dependency call settings for the core services, bound from {@code app.downstream.*}.
+ */
+@ConfigurationProperties("app.downstream")
+public record DownstreamProperties(@DefaultValue Settings product,
+                                   @DefaultValue Settings recommendation,
+                                   @DefaultValue Settings review) {
+
+    /**
+     * @param timeout            upper bound of the deadline for the whole call, including a hedged attempt,
+     *                           and the deadline while there are no recent samples
+     * @param minTimeout         lower bound of the deadline
+     * @param deadlinePercentile latency percentile of recent calls that the deadline is based on
+     * @param deadlineFactor     multiple of that percentile after which a call is given up
+     * @param hedgeEnabled       whether a second attempt is sent when the first one is slow
+     * @param hedgePercentile    latency percentile of recent calls after which the second attempt is sent
+     * @param hedgeMinDelay      lower bound for the hedge delay, protects against hedging every call
+     */
+    public record Settings(@DefaultValue("3s") Duration timeout,
+                           @DefaultValue("500ms") Duration minTimeout,
+                           @DefaultValue("0.999") double deadlinePercentile,
+                           @DefaultValue("3") double deadlineFactor,
+                           @DefaultValue("false") boolean hedgeEnabled,
+                           @DefaultValue("0.95") double hedgePercentile,
+                           @DefaultValue("20ms") Duration hedgeMinDelay) {
+    }
+}
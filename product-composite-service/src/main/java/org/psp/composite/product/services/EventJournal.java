@@ -0,0 +1,247 @@
+package org.psp.composite.product.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only file journal of outgoing messages. Each record is written as
+ * [length][crc32][binding name][partition key][payload] and, when fsync is on, forced to disk before
+ * append returns. The position of the first record not yet confirmed by the broker is kept in a
+ * separate offset file, so records survive a restart until they are committed. A torn record at the
+ * end of the journal, left by a crash during append, is detected by its checksum and cut off on open.
+ * <p>
+ * Once all records are committed the journal is truncated; when the committed part grows beyond the
+ * compaction threshold, the uncommitted tail is copied into a fresh journal. The offset is always reset
+ * before the journal is replaced, so a crash in between re-sends records instead of losing them.
+ */
+public class EventJournal implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(EventJournal.class);
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    public record Entry(String bindingName, int partitionKey, byte[] payload, long nextPosition) {
+    }
+
+    private final Path journalFile;
+    private final Path offsetFile;
+    private final boolean fsync;
+    private final long maxSize;
+    private final long compactThreshold;
+
+    private FileChannel journal;
+    private long end;
+    private long committed;
+
+    public EventJournal(Path journalFile, boolean fsync, long maxSize, long compactThreshold) {
+        this.journalFile = journalFile;
+        this.offsetFile = journalFile.resolveSibling(journalFile.getFileName() + ".offset");
+        this.fsync = fsync;
+        this.maxSize = maxSize;
+        this.compactThreshold = compactThreshold;
+        try {
+            Files.createDirectories(journalFile.toAbsolutePath().getParent());
+            journal = FileChannel.open(journalFile, CREATE, READ, WRITE);
+            committed = readOffset();
+            end = recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't open the event journal " + journalFile, ex);
+        }
+        LOG.info("Opened the event journal {} with {} uncommitted bytes", journalFile, end - committed);
+    }
+
+    public synchronized void append(String bindingName, int partitionKey, byte[] payload) {
+        byte[] name = bindingName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.allocate(Integer.BYTES + name.length + Integer.BYTES + payload.length)
+                .putInt(name.length).put(name)
+                .putInt(partitionKey)
+                .put(payload)
+                .flip();
+        if (end + HEADER_SIZE + body.remaining() > maxSize) {
+            throw new IllegalStateException("The event journal " + journalFile + " is full, "
+                    + (end - committed) + " bytes are waiting for the broker");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(body.remaining())
+                .putInt((int) crc.getValue())
+                .flip();
+        try {
+            long position = end;
+            position += writeFully(header, position);
+            position += writeFully(body, position);
+            if (fsync) {
+                journal.force(false);
+            }
+            end = position;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't append to the event journal " + journalFile, ex);
+        }
+    }
+
+    /**
+     * Returns up to maxEntries records, starting with the first uncommitted one. The same records are
+     * returned again until they are committed.
+     */
+    public synchronized List<Entry> read(int maxEntries) {
+        List<Entry> entries = new ArrayList<>();
+        long position = committed;
+        try {
+            while (entries.size() < maxEntries && position < end) {
+                Entry entry = readEntry(position);
+                entries.add(entry);
+                position = entry.nextPosition();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't read the event journal " + journalFile, ex);
+        }
+        return entries;
+    }
+
+    public synchronized void commit(long position) {
+        try {
+            committed = position;
+            if (committed == end) {
+                writeOffset(0);
+                journal.truncate(0);
+                end = committed = 0;
+            } else if (committed >= compactThreshold) {
+                compact();
+            } else {
+                writeOffset(committed);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't commit the event journal " + journalFile, ex);
+        }
+    }
+
+    public synchronized long uncommittedBytes() {
+        return end - committed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    private void compact() throws IOException {
+        LOG.debug("Compacts the event journal, keeps {} uncommitted bytes", end - committed);
+        Path compacted = journalFile.resolveSibling(journalFile.getFileName() + ".compact");
+        try (FileChannel target = FileChannel.open(compacted, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long copied = 0;
+            while (copied < end - committed) {
+                copied += journal.transferTo(committed + copied, end - committed - copied, target);
+            }
+            target.force(true);
+        }
+        writeOffset(0);
+        journal.close();
+        Files.move(compacted, journalFile, REPLACE_EXISTING, ATOMIC_MOVE);
+        journal = FileChannel.open(journalFile, READ, WRITE);
+        end -= committed;
+        committed = 0;
+    }
+
+    /**
+     * Cuts off a torn or corrupt record at the end of the journal and returns the new end position.
+     */
+    private long recover() throws IOException {
+        long size = journal.size();
+        if (committed > size) {
+            LOG.warn("Offset {} is beyond the end of the event journal, starts from the beginning", committed);
+            committed = 0;
+        }
+        long position = committed;
+        while (position < size) {
+            Entry entry;
+            try {
+                entry = readEntry(position);
+            } catch (IOException | RuntimeException ex) {
+                LOG.warn("Drops a corrupt record at position {} of the event journal: {}", position, ex.toString());
+                break;
+            }
+            position = entry.nextPosition();
+        }
+        if (position < size) {
+            journal.truncate(position);
+            journal.force(true);
+        }
+        return position;
+    }
+
+    private Entry readEntry(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, position);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 2 * Integer.BYTES || position + HEADER_SIZE + length > journal.size()) {
+            throw new IOException("Invalid record length " + length);
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(body, position + HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch");
+        }
+        byte[] name = new byte[body.getInt()];
+        body.get(name);
+        int partitionKey = body.getInt();
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        return new Entry(new String(name, StandardCharsets.UTF_8), partitionKey, payload,
+                position + HEADER_SIZE + length);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (journal.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the event journal");
+            }
+        }
+        buffer.flip();
+    }
+
+    private int writeFully(ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += journal.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private long readOffset() throws IOException {
+        if (!Files.exists(offsetFile)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(offsetFile).trim());
+    }
+
+    private void writeOffset(long offset) throws IOException {
+        Path tmp = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(offset).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(tmp, offsetFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+}
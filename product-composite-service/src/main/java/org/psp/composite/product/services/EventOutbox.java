@@ -0,0 +1,179 @@
+package org.psp.composite.product.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.psp.api.core.event.Event;
+import org.psp.util.messaging.EventCodec;
+import org.psp.util.messaging.EventMessageConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transactional outbox for the events published by the composite service. Events are appended to a
+ * local {@link EventJournal}, so a write request completes as soon as its events are on disk, and a
+ * relay thread drains the journal to the binder in batches. With publisher confirms on, a batch is
+ * committed only after the broker has confirmed every message in it; otherwise the binder's own send
+ * result is relied on, e.g. a synchronous Kafka producer. Delivery is at least once: a batch that
+ * fails half way is sent again from its first message.
+ * <p>
+ * Events are stored in the content type of their output binding, JSON or the binary event format.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+public class EventOutbox implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(EventOutbox.class);
+
+    private final EventJournal journal;
+    private final StreamBridge streamBridge;
+    private final BindingServiceProperties bindingProperties;
+    private final ObjectMapper mapper;
+    private final IntegrationMetrics metrics;
+    private final int batchSize;
+    private final boolean publisherConfirms;
+    private final Duration confirmTimeout;
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Scheduler relayScheduler;
+    private final Disposable relay;
+
+    public EventOutbox(StreamBridge streamBridge,
+                       BindingServiceProperties bindingProperties,
+                       ObjectMapper mapper,
+                       MeterRegistry meterRegistry,
+                       IntegrationMetrics metrics,
+                       @Value("${app.outbox.path:outbox/events.journal}") Path path,
+                       @Value("${app.outbox.fsync:true}") boolean fsync,
+                       @Value("${app.outbox.max-size:512MB}") DataSize maxSize,
+                       @Value("${app.outbox.compact-threshold:16MB}") DataSize compactThreshold,
+                       @Value("${app.outbox.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.poll-interval:100ms}") Duration pollInterval,
+                       @Value("${app.outbox.publisher-confirms:false}") boolean publisherConfirms,
+                       @Value("${app.outbox.confirm-timeout:10s}") Duration confirmTimeout) {
+        LOG.info("Creates an event outbox in {} with batch size = {}, poll interval = {}, publisher confirms = {}",
+                path, batchSize, pollInterval, publisherConfirms);
+        this.journal = new EventJournal(path, fsync, maxSize.toBytes(), compactThreshold.toBytes());
+        this.streamBridge = streamBridge;
+        this.bindingProperties = bindingProperties;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+        this.publisherConfirms = publisherConfirms;
+        this.confirmTimeout = confirmTimeout;
+        this.publishedCounter = Counter.builder("composite.outbox.published")
+                .description("Events relayed from the outbox to the broker")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("composite.outbox.failures")
+                .description("Outbox batches that failed and will be sent again")
+                .register(meterRegistry);
+        Gauge.builder("composite.outbox.backlog", journal, EventJournal::uncommittedBytes)
+                .description("Bytes in the outbox journal not yet confirmed by the broker")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.relayScheduler = Schedulers.newSingle("outbox-relay");
+        this.relay = relayScheduler.schedulePeriodically(this::drain, pollInterval.toMillis(),
+                pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void append(String bindingName, Event<Integer, ?> event) {
+        try {
+            byte[] payload = isBinary(bindingName) ? EventCodec.encode(event) : mapper.writeValueAsBytes(event);
+            journal.append(bindingName, event.getKey(), payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Can't serialize the event " + event.getEventType(), ex);
+        }
+    }
+
+    void drain() {
+        try {
+            List<EventJournal.Entry> batch;
+            while (!(batch = journal.read(batchSize)).isEmpty()) {
+                publish(batch);
+                journal.commit(batch.get(batch.size() - 1).nextPosition());
+                publishedCounter.increment(batch.size());
+                LOG.debug("Relayed {} events from the outbox", batch.size());
+            }
+        } catch (RuntimeException ex) {
+            failureCounter.increment();
+            LOG.warn("Failed to relay the outbox events, will try again: {}", ex.toString());
+        }
+    }
+
+    private void publish(List<EventJournal.Entry> batch) {
+        List<CorrelationData> confirms = new ArrayList<>(batch.size());
+        for (EventJournal.Entry entry : batch) {
+            MessageBuilder<byte[]> message = MessageBuilder.withPayload(entry.payload())
+                    .setHeader("partitionKey", entry.partitionKey())
+                    .setHeader(MessageHeaders.CONTENT_TYPE, contentType(entry.bindingName()));
+            if (publisherConfirms) {
+                CorrelationData confirm = new CorrelationData();
+                message.setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, confirm);
+                confirms.add(confirm);
+            }
+            Message<byte[]> built = message.build();
+            if (!metrics.timedSend(entry.bindingName(), () -> streamBridge.send(entry.bindingName(), built))) {
+                throw new IllegalStateException("The binder did not accept a message for " + entry.bindingName());
+            }
+        }
+        awaitConfirms(confirms);
+    }
+
+    private boolean isBinary(String bindingName) {
+        return EventMessageConverter.CONTENT_TYPE.equals(contentType(bindingName));
+    }
+
+    private String contentType(String bindingName) {
+        return bindingProperties.getBindingProperties(bindingName).getContentType();
+    }
+
+    private void awaitConfirms(List<CorrelationData> confirms) {
+        long deadline = System.nanoTime() + confirmTimeout.toNanos();
+        for (CorrelationData confirm : confirms) {
+            try {
+                CorrelationData.Confirm result = confirm.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!result.isAck()) {
+                    throw new IllegalStateException("The broker did not confirm a message: " + result.getReason());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for publisher confirms", ex);
+            } catch (ExecutionException | TimeoutException ex) {
+                throw new IllegalStateException("No publisher confirm within " + confirmTimeout, ex);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        relay.dispose();
+        relayScheduler.disposeGracefully().timeout(confirmTimeout).onErrorComplete().block();
+        journal.close();
+    }
+}
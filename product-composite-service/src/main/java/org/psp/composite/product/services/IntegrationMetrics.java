@@ -0,0 +1,120 @@
+package org.psp.composite.product.services;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Latency timers, tagged with the outcome, for the calls the composite makes to the core services and for
+ * the events it hands to the binder. The timers publish percentile histograms, so the percentiles can be
+ * aggregated over all instances of the composite.
+ * <p>
+ * A call is timed from subscription to its last signal, including hedged attempts and the deadline of
+ * its {@link DownstreamCallPolicy}. Calls shared through a {@link SingleFlight} are timed once. Calls
+ * refused by an open circuit breaker or a full bulkhead are recorded as rejected.
+ */
+@Component
+public class IntegrationMetrics {
+    static final String SUCCESS = "SUCCESS";
+    static final String CLIENT_ERROR = "CLIENT_ERROR";
+    static final String SERVER_ERROR = "SERVER_ERROR";
+    static final String TIMEOUT = "TIMEOUT";
+    static final String ERROR = "ERROR";
+    static final String CANCELLED = "CANCELLED";
+    static final String REJECTED = "REJECTED";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<CallKey, Timer> callTimers = new ConcurrentHashMap<>();
+    private final Map<SendKey, Timer> sendTimers = new ConcurrentHashMap<>();
+
+    public IntegrationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> timed(String dependency, String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> recordCall(dependency, operation, SUCCESS, start))
+                    .doOnError(ex -> recordCall(dependency, operation, outcome(ex), start))
+                    .doOnCancel(() -> recordCall(dependency, operation, CANCELLED, start));
+        });
+    }
+
+    public <T> Flux<T> timed(String dependency, String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnComplete(() -> recordCall(dependency, operation, SUCCESS, start))
+                    .doOnError(ex -> recordCall(dependency, operation, outcome(ex), start))
+                    .doOnCancel(() -> recordCall(dependency, operation, CANCELLED, start));
+        });
+    }
+
+    /**
+     * Times a send to the binder. A send the binder did not accept is recorded as rejected, an exception
+     * as an error; both are passed on to the caller.
+     */
+    public boolean timedSend(String bindingName, BooleanSupplier send) {
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            boolean sent = send.getAsBoolean();
+            outcome = sent ? SUCCESS : REJECTED;
+            return sent;
+        } finally {
+            sendTimers.computeIfAbsent(new SendKey(bindingName, outcome), key -> Timer.builder("composite.events.sent")
+                            .description("Time to hand an event to the binder")
+                            .tag("binding", key.bindingName())
+                            .tag("outcome", key.outcome())
+                            .publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofNanos(100_000))
+                            .maximumExpectedValue(Duration.ofSeconds(10))
+                            .register(meterRegistry))
+                    .record(System.nanoTime() - start, NANOSECONDS);
+        }
+    }
+
+    static String outcome(Throwable error) {
+        if (error instanceof CallNotPermittedException || error instanceof BulkheadFullException) {
+            return REJECTED;
+        }
+        if (error instanceof WebClientResponseException ex) {
+            return ex.getStatusCode().is4xxClientError() ? CLIENT_ERROR : SERVER_ERROR;
+        }
+        return error instanceof TimeoutException ? TIMEOUT : ERROR;
+    }
+
+    private void recordCall(String dependency, String operation, String outcome, long start) {
+        callTimers.computeIfAbsent(new CallKey(dependency, operation, outcome), key -> Timer
+                        .builder("composite.downstream.calls")
+                        .description("Latency of the calls to the core services")
+                        .tag("dependency", key.dependency())
+                        .tag("operation", key.operation())
+                        .tag("outcome", key.outcome())
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry))
+                .record(System.nanoTime() - start, NANOSECONDS);
+    }
+
+    private record CallKey(String dependency, String operation, String outcome) {
+    }
+
+    private record SendKey(String bindingName, String outcome) {
+    }
+}
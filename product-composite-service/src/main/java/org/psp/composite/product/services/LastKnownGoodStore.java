@@ -0,0 +1,98 @@
+package org.psp.composite.product.services;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Bounded store of the last good answer of one core service per product id, served in place of an
+ * error when the service fails. The answers are kept on the heap, or, when a directory is configured,
+ * written through to a {@link MappedSlotFile} there so that they survive a restart. Answers too large
+ * for a slot are not kept.
+ */
+public class LastKnownGoodStore<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(LastKnownGoodStore.class);
+
+    private final String name;
+    private final Cache<Integer, T> heap;
+    private final MappedSlotFile file;
+    private final ObjectMapper mapper;
+    private final JavaType type;
+    private final Counter servedCounter;
+
+    public LastKnownGoodStore(String name, JavaType type, int maxEntries, Path directory, int slotSize,
+                              ObjectMapper mapper, MeterRegistry meterRegistry) {
+        LOG.info("Creates a last known good store for {} with max entries = {} in {}", name, maxEntries,
+                directory == null ? "memory" : directory);
+        this.name = name;
+        this.type = type;
+        this.mapper = mapper;
+        if (directory == null) {
+            this.heap = Caffeine.newBuilder().maximumSize(maxEntries).build();
+            this.file = null;
+        } else {
+            this.heap = null;
+            this.file = new MappedSlotFile(directory.resolve(name + ".slots"), maxEntries, slotSize);
+        }
+        this.servedCounter = Counter.builder("composite.last-known-good.served")
+                .description("Answers served from the last known good copy after a failed call")
+                .tag("dependency", name)
+                .register(meterRegistry);
+    }
+
+    public void put(int productId, T value) {
+        if (heap != null) {
+            heap.put(productId, value);
+            return;
+        }
+        try {
+            if (!file.put(productId, mapper.writeValueAsBytes(value))) {
+                LOG.debug("The {} answer for product id {} does not fit in a slot", name, productId);
+                file.remove(productId);
+            }
+        } catch (IOException ex) {
+            LOG.warn("Can't store the {} answer for product id {}: {}", name, productId, ex.toString());
+        }
+    }
+
+    /**
+     * Returns the last good answer, or null if there is none. Counted as served, so only call it to
+     * replace a failed answer.
+     */
+    public T get(int productId) {
+        T value = heap != null ? heap.getIfPresent(productId) : read(productId);
+        if (value != null) {
+            servedCounter.increment();
+        }
+        return value;
+    }
+
+    public void remove(int productId) {
+        if (heap != null) {
+            heap.invalidate(productId);
+        } else {
+            file.remove(productId);
+        }
+    }
+
+    private T read(int productId) {
+        byte[] payload = file.get(productId);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return mapper.readValue(payload, type);
+        } catch (IOException ex) {
+            LOG.warn("Can't read the {} answer for product id {}: {}", name, productId, ex.toString());
+            return null;
+        }
+    }
+}
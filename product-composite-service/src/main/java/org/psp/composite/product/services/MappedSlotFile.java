@@ -0,0 +1,111 @@
+package org.psp.composite.product.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Fixed-size file of slots mapped into memory. A record lives in the slot its key maps to and replaces
+ * whatever record was there, so the file never grows and needs no compaction; with sequential keys a
+ * record is only replaced by one whose key differs by a multiple of the slot count. Each slot holds
+ * [key][length + 1][crc32][payload], so a zeroed slot reads as empty and a slot torn by a crash fails
+ * its checksum and reads as empty too.
+ * <p>
+ * Writes go to the page cache and are not forced, the records survive a restart of the process but
+ * not necessarily a crash of the host.
+ */
+public class MappedSlotFile {
+    private static final Logger LOG = LoggerFactory.getLogger(MappedSlotFile.class);
+
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final int slots;
+    private final int slotSize;
+    private final MappedByteBuffer buffer;
+
+    public MappedSlotFile(Path file, int slots, int slotSize) {
+        if (slotSize <= HEADER_SIZE || (long) slots * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid slot file layout: " + slots + " slots of " + slotSize
+                    + " bytes");
+        }
+        this.slots = slots;
+        this.slotSize = slotSize;
+        long size = (long) slots * slotSize;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+                if (channel.size() != size) {
+                    if (channel.size() > 0) {
+                        LOG.warn("The slot file {} has another layout, starts with an empty file", file);
+                    }
+                    channel.truncate(0);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't map the slot file " + file, ex);
+        }
+        LOG.info("Mapped the slot file {} with {} slots of {} bytes", file, slots, slotSize);
+    }
+
+    /**
+     * Returns false if the payload does not fit in a slot. An unchanged record is not written again, so
+     * repeating the same answer does not dirty its page.
+     */
+    public synchronized boolean put(int key, byte[] payload) {
+        if (payload.length > slotSize - HEADER_SIZE) {
+            return false;
+        }
+        int offset = offset(key);
+        int checksum = checksum(payload);
+        if (buffer.getInt(offset) == key && buffer.getInt(offset + Integer.BYTES) == payload.length + 1
+                && buffer.getInt(offset + 2 * Integer.BYTES) == checksum) {
+            return true;
+        }
+        buffer.putInt(offset + Integer.BYTES, 0);
+        buffer.put(offset + HEADER_SIZE, payload);
+        buffer.putInt(offset, key);
+        buffer.putInt(offset + 2 * Integer.BYTES, checksum);
+        buffer.putInt(offset + Integer.BYTES, payload.length + 1);
+        return true;
+    }
+
+    public synchronized byte[] get(int key) {
+        int offset = offset(key);
+        int length = buffer.getInt(offset + Integer.BYTES) - 1;
+        if (buffer.getInt(offset) != key || length < 0 || length > slotSize - HEADER_SIZE) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_SIZE, payload);
+        return checksum(payload) == buffer.getInt(offset + 2 * Integer.BYTES) ? payload : null;
+    }
+
+    public synchronized void remove(int key) {
+        int offset = offset(key);
+        if (buffer.getInt(offset) == key) {
+            buffer.putInt(offset + Integer.BYTES, 0);
+        }
+    }
+
+    private int offset(int key) {
+        return Math.floorMod(key, slots) * slotSize;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,99 @@
+package org.psp.composite.product.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.psp.api.composite.product.ProductAggregate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of assembled product aggregates.
+ * Entries are evicted by size and TTL and invalidated explicitly when a CREATE/DELETE event
+ * for the product id is published. Aggregates with stale parts are not cached, so the next request
+ * tries the failed core service again. Hit, miss and eviction counters are exposed through
+ * the actuator metrics endpoint under the cache name "product-aggregate".
+ */
+@Component
+public class ProductAggregateCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ProductAggregateCache.class);
+
+    static final String CACHE_NAME = "product-aggregate";
+
+    private final Cache<Integer, ProductAggregate> cache;
+
+    public ProductAggregateCache(@Value("${app.aggregate-cache.max-size:10000}") long maxSize,
+                                 @Value("${app.aggregate-cache.ttl:60s}") Duration ttl,
+                                 MeterRegistry meterRegistry) {
+        LOG.info("Creates a product aggregate cache with max size = {} and ttl = {}", maxSize, ttl);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Mono<ProductAggregate> get(int productId, Supplier<Mono<ProductAggregate>> loader) {
+        return Mono.defer(() -> {
+            ProductAggregate cached = cache.getIfPresent(productId);
+            if (cached != null) {
+                LOG.debug("Found product aggregate for product id {} in the cache", productId);
+                return Mono.just(cached);
+            }
+            return loader.get().doOnNext(aggregate -> {
+                if (aggregate.getStale() == null) {
+                    cache.put(productId, aggregate);
+                }
+            });
+        });
+    }
+
+    public ProductAggregate getIfPresent(int productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    /**
+     * Returns the aggregates for the given product ids in request order. Only the ids that are not
+     * cached are handed to the loader, so a fully cached batch makes no downstream calls at all; loaded
+     * aggregates with stale parts are not cached.
+     */
+    public Flux<ProductAggregate> getAll(List<Integer> productIds,
+                                         Function<List<Integer>, Flux<ProductAggregate>> loader) {
+        return Mono.defer(() -> {
+            Map<Integer, ProductAggregate> found = new HashMap<>(cache.getAllPresent(productIds));
+            List<Integer> missing = productIds.stream().filter(id -> !found.containsKey(id)).toList();
+            LOG.debug("Found {} of {} product aggregates in the cache", found.size(), productIds.size());
+            if (missing.isEmpty()) {
+                return Mono.just(found);
+            }
+            return loader.apply(missing)
+                    .doOnNext(aggregate -> {
+                        if (aggregate.getStale() == null) {
+                            cache.put(aggregate.getProductId(), aggregate);
+                        }
+                    })
+                    .doOnNext(aggregate -> found.put(aggregate.getProductId(), aggregate))
+                    .then(Mono.just(found));
+        }).flatMapMany(found -> Flux.fromIterable(productIds)
+                .filter(found::containsKey)
+                .map(found::get));
+    }
+
+    public void invalidate(int productId) {
+        LOG.debug("Invalidates the cached product aggregate for product id {}", productId);
+        cache.invalidate(productId);
+    }
+}
@@ -2,6 +2,10 @@ package org.psp.composite.product.services;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.psp.api.core.event.Event;
 import org.psp.api.core.product.Product;
 import org.psp.api.core.product.ProductService;
@@ -22,13 +26,22 @@ import org.springframework.http.HttpStatus;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 
-import static java.util.logging.Level.FINE;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
 import static org.psp.api.core.event.Event.Type.CREATE;
 import static org.psp.api.core.event.Event.Type.DELETE;
 import static reactor.core.publisher.Flux.empty;
@@ -45,16 +58,69 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
     private final ObjectMapper mapper;
 
     private StreamBridge streamBridge;
+    private final Optional<EventOutbox> outbox;
     private final Scheduler publishEventScheduler;
+    private final ProductAggregateCache aggregateCache;
+
+    private final SingleFlight<Integer> productCalls;
+    private final SingleFlight<PageKey> recommendationCalls;
+    private final SingleFlight<PageKey> reviewCalls;
+
+    private final DownstreamCallPolicy productPolicy;
+    private final DownstreamCallPolicy recommendationPolicy;
+    private final DownstreamCallPolicy reviewPolicy;
+
+    private final IntegrationMetrics metrics;
+
+    private final LastKnownGoodStore<Product> lastKnownProducts;
+    private final LastKnownGoodStore<List<Recommendation>> lastKnownRecommendations;
+    private final LastKnownGoodStore<List<Review>> lastKnownReviews;
+
+    private final int streamPageSize;
 
     public ProductCompositeIntegration(@Qualifier("publishEventScheduler") Scheduler publishEventScheduler,
                                        WebClient.Builder webClient,
                                        ObjectMapper mapper,
-                                       StreamBridge streamBridge) {
+                                       StreamBridge streamBridge,
+                                       Optional<EventOutbox> outbox,
+                                       ProductAggregateCache aggregateCache,
+                                       DownstreamProperties downstreamProperties,
+                                       CircuitBreakerRegistry circuitBreakers,
+                                       BulkheadRegistry bulkheads,
+                                       MeterRegistry meterRegistry,
+                                       IntegrationMetrics metrics,
+                                       @Value("${app.page.max-size:100}") int streamPageSize,
+                                       @Value("${app.last-known-good.max-entries:10000}") int lastKnownMaxEntries,
+                                       @Value("${app.last-known-good.directory:}") String lastKnownDirectory,
+                                       @Value("${app.last-known-good.slot-size:8KB}") DataSize lastKnownSlotSize) {
         this.publishEventScheduler = publishEventScheduler;
         this.webClient = webClient.build();
         this.mapper = mapper;
         this.streamBridge = streamBridge;
+        this.outbox = outbox;
+        this.aggregateCache = aggregateCache;
+        this.productCalls = new SingleFlight<>("getProduct", meterRegistry);
+        this.recommendationCalls = new SingleFlight<>("getRecommendations", meterRegistry);
+        this.reviewCalls = new SingleFlight<>("getReviews", meterRegistry);
+        this.productPolicy = new DownstreamCallPolicy("product", downstreamProperties.product(),
+                circuitBreakers.circuitBreaker("product"), bulkheads.bulkhead("product"), meterRegistry);
+        this.recommendationPolicy = new DownstreamCallPolicy("recommendation", downstreamProperties.recommendation(),
+                circuitBreakers.circuitBreaker("recommendation"), bulkheads.bulkhead("recommendation"), meterRegistry);
+        this.reviewPolicy = new DownstreamCallPolicy("review", downstreamProperties.review(),
+                circuitBreakers.circuitBreaker("review"), bulkheads.bulkhead("review"), meterRegistry);
+        this.metrics = metrics;
+        TypeFactory types = mapper.getTypeFactory();
+        Path directory = lastKnownDirectory.isBlank() ? null : Path.of(lastKnownDirectory);
+        int slotSize = (int) lastKnownSlotSize.toBytes();
+        this.lastKnownProducts = new LastKnownGoodStore<>("product", types.constructType(Product.class),
+                lastKnownMaxEntries, directory, slotSize, mapper, meterRegistry);
+        this.lastKnownRecommendations = new LastKnownGoodStore<>("recommendation",
+                types.constructCollectionType(List.class, Recommendation.class), lastKnownMaxEntries, directory,
+                slotSize, mapper, meterRegistry);
+        this.lastKnownReviews = new LastKnownGoodStore<>("review",
+                types.constructCollectionType(List.class, Review.class), lastKnownMaxEntries, directory, slotSize,
+                mapper, meterRegistry);
+        this.streamPageSize = streamPageSize;
     }
 
     @Override
@@ -67,7 +133,10 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
 
     @Override
     public Mono<Void> deleteProduct(int productId) {
-        return Mono.fromRunnable(() -> sendMessage("products-out-0", new Event(DELETE, productId, null)))
+        return Mono.fromRunnable(() -> {
+                    sendMessage("products-out-0", new Event(DELETE, productId, null));
+                    lastKnownProducts.remove(productId);
+                })
                 .subscribeOn(publishEventScheduler).then();
     }
 
@@ -79,11 +148,17 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }).subscribeOn(publishEventScheduler);
     }
 
+    /**
+     * Publishes the delete event, the recommendations are deleted asynchronously so there is no count.
+     */
     @Override
-    public Mono<Void> deleteRecommendations(int productId) {
-        return Mono.fromRunnable(() -> sendMessage("recommendations-out-0", new Event(DELETE, productId, null)))
+    public Mono<Long> deleteRecommendations(int productId) {
+        return Mono.fromRunnable(() -> {
+                    sendMessage("recommendations-out-0", new Event(DELETE, productId, null));
+                    lastKnownRecommendations.remove(productId);
+                })
                 .subscribeOn(publishEventScheduler)
-                .then();
+                .then(Mono.empty());
     }
 
     @Override
@@ -94,45 +169,61 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }).subscribeOn(publishEventScheduler);
     }
 
+    /**
+     * Publishes the delete event, the reviews are deleted asynchronously so there is no count.
+     */
     @Override
-    public Mono<Void> deleteReview(int productId) {
-        return Mono.fromRunnable(() -> sendMessage("reviews-out-0", new Event(DELETE, productId, null)))
-                .subscribeOn(publishEventScheduler).then();
+    public Mono<Long> deleteReview(int productId) {
+        return Mono.fromRunnable(() -> {
+                    sendMessage("reviews-out-0", new Event(DELETE, productId, null));
+                    lastKnownReviews.remove(productId);
+                })
+                .subscribeOn(publishEventScheduler).then(Mono.empty());
     }
 
     public Mono<Health> getProductHealth() {
-        return getHealth(PRODUCT_SERVICE_URL);
+        return getHealth("product", PRODUCT_SERVICE_URL);
     }
 
     public Mono<Health> getRecommendationHealth() {
-        return getHealth(RECOMMENDATION_SERVICE_URL);
+        return getHealth("recommendation", RECOMMENDATION_SERVICE_URL);
     }
 
     public Mono<Health> getReviewHealth() {
-        return getHealth(REVIEW_SERVICE_URL);
+        return getHealth("review", REVIEW_SERVICE_URL);
     }
 
-    private Mono<Health> getHealth(String url) {
+    private Mono<Health> getHealth(String dependency, String url) {
         url += "/actuator/health";
-        LOG.info("------> Will call actuator health API on URL: {}", url);
-        return webClient.get().uri(url).retrieve().bodyToMono(String.class)
+        LOG.debug("Will call actuator health API on URL: {}", url);
+        return metrics.timed(dependency, "health", webClient.get().uri(url).retrieve().bodyToMono(String.class))
                 .map(s -> new Health.Builder().up().build())
-                .onErrorResume(ex -> {
-                            System.out.println("++++++++++++++++++++HEALTH: " + ex);
-                            return Mono.just(new Health.Builder().down().build());
-                        }
-                )
-                .log(LOG.getName(), FINE);
+                .onErrorResume(ex -> Mono.just(new Health.Builder().down(ex).build()));
     }
 
+    /**
+     * Falls back to the last product received for the id when the product service fails; a product it
+     * reports as not found is forgotten.
+     */
     public Mono<Product> getProduct(int productId) {
+        return productCalls.mono(productId, () -> {
+            String url = PRODUCT_SERVICE_URL + "/product/" + productId;
+            LOG.debug("Will call getProduct API on URL: {}", url);
+            return metrics.timed("product", "getProduct", productPolicy.mono(() -> webClient.get().uri(url)
+                            .retrieve()
+                            .bodyToMono(Product.class)))
+                    .onErrorMap(WebClientResponseException.class, ex -> handleException(ex))
+                    .doOnNext(product -> lastKnownProducts.put(productId, product))
+                    .doOnError(NotFoundException.class, ex -> lastKnownProducts.remove(productId));
+        }).onErrorResume(ex -> lastKnown(lastKnownProducts, productId, "product", ex));
+    }
 
-        String url = PRODUCT_SERVICE_URL + "/product/" + productId;
-        LOG.debug("Will call getProduct API on URL: {}", url);
-        return webClient.get().uri(url)
-                .retrieve()
-                .bodyToMono(Product.class)
-                .log(LOG.getName(), FINE)
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        String url = PRODUCT_SERVICE_URL + "/product?productId=" + toQueryParameter(productIds);
+        LOG.debug("Will call getProducts API on URL: {}", url);
+        return metrics.timed("product", "getProductsBatch", productPolicy.deadline(() -> webClient.get().uri(url)
+                        .retrieve()
+                        .bodyToFlux(Product.class)))
                 .onErrorMap(WebClientResponseException.class, ex -> handleException(ex));
     }
 
@@ -144,34 +235,192 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
         }
     }
 
-    public Flux<Recommendation> getRecommendations(int productId) {
-        String url = RECOMMENDATION_SERVICE_URL + "/recommendation/" + productId;
+    /**
+     * The first page is kept and served again, cut to the limit, when the recommendation service fails.
+     * Other pages fall back to an empty list.
+     */
+    @Override
+    public Flux<Recommendation> getRecommendations(int productId, Integer afterRecommendationId, Integer limit) {
+        if (afterRecommendationId != null) {
+            return recommendationCalls.flux(new PageKey(productId, afterRecommendationId, limit),
+                            () -> getRecommendationsPage(productId, afterRecommendationId, limit))
+                    .onErrorResume(error -> empty());
+        }
+        return recommendationCalls.flux(new PageKey(productId, null, limit),
+                        () -> getRecommendationsPage(productId, null, limit).collectList()
+                                .doOnNext(page -> lastKnownRecommendations.put(productId, page))
+                                .flatMapIterable(page -> page))
+                .onErrorResume(error -> lastKnown(lastKnownRecommendations, productId, "recommendations", error)
+                        .flatMapIterable(page -> firstItems(page, limit))
+                        .onErrorResume(ex -> empty()));
+    }
+
+    /**
+     * Pages through all recommendations after the cursor. The pages are not shared with concurrent callers,
+     * so at most one page is kept in memory at a time. A failed page ends the stream with the error, so that
+     * a cut stream is not taken for a complete one.
+     */
+    public Flux<Recommendation> streamRecommendations(int productId, Integer afterRecommendationId) {
+        return allPages(afterRecommendationId, after -> getRecommendationsPage(productId, after, streamPageSize),
+                Recommendation::getRecommendationId);
+    }
+
+    private Flux<Recommendation> getRecommendationsPage(int productId, Integer afterRecommendationId, Integer limit) {
+        String url = RECOMMENDATION_SERVICE_URL + "/recommendation/" + productId
+                + pageQuery(afterRecommendationId, limit);
+        LOG.debug("Will call getRecommendations API on URL: {}", url);
+        return metrics.timed("recommendation", "getRecommendations", recommendationPolicy.flux(() -> webClient.get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToFlux(Recommendation.class)));
+    }
+
+    @Override
+    public Flux<Recommendation> getRecommendations(List<Integer> productIds, Integer limit) {
+        String url = RECOMMENDATION_SERVICE_URL + "/recommendation?productId=" + toQueryParameter(productIds)
+                + "&limit=" + limit;
         LOG.debug("Will call getRecommendations API on URL: {}", url);
-        return webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToFlux(Recommendation.class)
-                .log(LOG.getName(), FINE)
-                .onErrorResume(error -> empty());
+        return metrics.timed("recommendation", "getRecommendationsBatch", recommendationPolicy.deadline(() -> webClient
+                        .get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToFlux(Recommendation.class)))
+                .onErrorMap(WebClientResponseException.class, ex -> handleException(ex))
+                .onErrorResume(error -> lastKnown(lastKnownRecommendations, productIds, limit, "recommendations",
+                        error));
     }
 
     private void sendMessage(String bindingName, Event event) {
-        LOG.debug("Sending a message {} to {}", event.getEventType(), bindingName);
-        Message message = MessageBuilder.withPayload(event)
-                .setHeader("partitionKey", event.getKey())
-                .build();
-        streamBridge.send(bindingName, message);
+        if (outbox.isPresent()) {
+            LOG.debug("Appending a message {} for {} to the outbox", event.getEventType(), bindingName);
+            outbox.get().append(bindingName, event);
+        } else {
+            LOG.debug("Sending a message {} to {}", event.getEventType(), bindingName);
+            Message message = MessageBuilder.withPayload(event)
+                    .setHeader("partitionKey", event.getKey())
+                    .build();
+            metrics.timedSend(bindingName, () -> streamBridge.send(bindingName, message));
+        }
+        aggregateCache.invalidate((Integer) event.getKey());
+    }
+
+    /**
+     * The first page is kept and served again, cut to the limit, when the review service fails. Other
+     * pages fall back to an empty list.
+     */
+    @Override
+    public Flux<Review> getReviews(int productId, Integer afterReviewId, Integer limit) {
+        if (afterReviewId != null) {
+            return reviewCalls.flux(new PageKey(productId, afterReviewId, limit),
+                            () -> getReviewsPage(productId, afterReviewId, limit))
+                    .onErrorResume(error -> empty());
+        }
+        return reviewCalls.flux(new PageKey(productId, null, limit),
+                        () -> getReviewsPage(productId, null, limit).collectList()
+                                .doOnNext(page -> lastKnownReviews.put(productId, page))
+                                .flatMapIterable(page -> page))
+                .onErrorResume(error -> lastKnown(lastKnownReviews, productId, "reviews", error)
+                        .flatMapIterable(page -> firstItems(page, limit))
+                        .onErrorResume(ex -> empty()));
     }
 
-    public Flux<Review> getReviews(int productId) {
-        String url = REVIEW_SERVICE_URL + "/review/" + productId;
+    /**
+     * Pages through all reviews after the cursor. The pages are not shared with concurrent callers,
+     * so at most one page is kept in memory at a time. A failed page ends the stream with the error, so that
+     * a cut stream is not taken for a complete one.
+     */
+    public Flux<Review> streamReviews(int productId, Integer afterReviewId) {
+        return allPages(afterReviewId, after -> getReviewsPage(productId, after, streamPageSize),
+                Review::getReviewId);
+    }
+
+    private Flux<Review> getReviewsPage(int productId, Integer afterReviewId, Integer limit) {
+        String url = REVIEW_SERVICE_URL + "/review/" + productId + pageQuery(afterReviewId, limit);
+        LOG.debug("Will call getReviews API on URL: {}", url);
+        return metrics.timed("review", "getReviews", reviewPolicy.flux(() -> webClient.get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToFlux(Review.class)));
+    }
+
+    @Override
+    public Flux<Review> getReviews(List<Integer> productIds, Integer limit) {
+        String url = REVIEW_SERVICE_URL + "/review?productId=" + toQueryParameter(productIds) + "&limit=" + limit;
         LOG.debug("Will call getReviews API on URL: {}", url);
-        return webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToFlux(Review.class)
-                .log(LOG.getName(), FINE)
-                .onErrorResume(error -> empty());
+        return metrics.timed("review", "getReviewsBatch", reviewPolicy.deadline(() -> webClient.get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToFlux(Review.class)))
+                .onErrorMap(WebClientResponseException.class, ex -> handleException(ex))
+                .onErrorResume(error -> lastKnown(lastKnownReviews, productIds, limit, "reviews", error));
+    }
+
+    /**
+     * Requests the next page after the last id of the previous one until a page comes back short.
+     * The page size must not exceed the maximum page size of the core service, otherwise its capped
+     * pages would look like the last one.
+     */
+    private <T> Flux<T> allPages(Integer after, Function<Integer, Flux<T>> page, ToIntFunction<T> id) {
+        return page.apply(after).collectList()
+                .expand(items -> items.size() < streamPageSize ? Mono.empty()
+                        : page.apply(id.applyAsInt(items.get(items.size() - 1))).collectList())
+                .flatMapIterable(items -> items);
+    }
+
+    /**
+     * Serves the last known good answer in place of a failed call and marks the part as stale. Errors that
+     * are the caller's, an unknown product or invalid input, are passed on.
+     */
+    private <T> Mono<T> lastKnown(LastKnownGoodStore<T> store, int productId, String part, Throwable error) {
+        if (error instanceof NotFoundException || error instanceof InvalidInputException) {
+            return Mono.error(error);
+        }
+        T value = store.get(productId);
+        if (value == null) {
+            return Mono.error(error);
+        }
+        LOG.warn("Serves the last known {} of product id {}: {}", part, productId, error.toString());
+        return StaleParts.mark(part, value);
+    }
+
+    /**
+     * Serves the last known first pages of the given products, cut to the limit, in place of a failed batch
+     * call and marks the part as stale. Products without a copy get none, the error is passed on when no
+     * product has one or when it is the caller's.
+     */
+    private <T> Flux<T> lastKnown(LastKnownGoodStore<List<T>> store, List<Integer> productIds, Integer limit,
+                                  String part, Throwable error) {
+        if (error instanceof NotFoundException || error instanceof InvalidInputException) {
+            return Flux.error(error);
+        }
+        List<List<T>> pages = productIds.stream()
+                .map(store::get)
+                .filter(Objects::nonNull)
+                .toList();
+        if (pages.isEmpty()) {
+            return Flux.error(error);
+        }
+        LOG.warn("Serves the last known {} of {} of {} product ids: {}", part, pages.size(), productIds.size(),
+                error.toString());
+        List<T> items = pages.stream()
+                .flatMap(page -> firstItems(page, limit).stream())
+                .toList();
+        return StaleParts.mark(part, items).flatMapIterable(list -> list);
+    }
+
+    private <T> List<T> firstItems(List<T> page, Integer limit) {
+        return limit == null || page.size() <= limit ? page : page.subList(0, limit);
+    }
+
+    private String pageQuery(Integer after, Integer limit) {
+        return UriComponentsBuilder.newInstance()
+                .queryParamIfPresent("after", Optional.ofNullable(after))
+                .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                .toUriString();
+    }
+
+    private String toQueryParameter(List<Integer> productIds) {
+        return productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
     }
 
     private Throwable handleException(Throwable ex) {
@@ -191,4 +440,7 @@ public class ProductCompositeIntegration implements ProductService, Recommendati
                 throw wcre;
         }
     }
+
+    private record PageKey(int productId, Integer after, Integer limit) {
+    }
 }
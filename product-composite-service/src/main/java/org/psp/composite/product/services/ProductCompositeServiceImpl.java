@@ -4,28 +4,61 @@ import org.psp.api.composite.product.*;
 import org.psp.api.core.product.Product;
 import org.psp.api.core.recommendation.Recommendation;
 import org.psp.api.core.review.Review;
+import org.psp.api.exceptions.InvalidInputException;
 import org.psp.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import static java.util.Collections.emptyList;
+
 import static java.util.logging.Level.FINE;
 
 @RestController
 public class ProductCompositeServiceImpl implements ProductCompositeService {
     private static final Logger LOG = LoggerFactory.getLogger(ProductCompositeServiceImpl.class);
+
+    private static final String INCLUDE_PRODUCT = "product";
+    private static final String INCLUDE_RECOMMENDATIONS = "recommendations";
+    private static final String INCLUDE_REVIEWS = "reviews";
+    private static final Set<String> ALL_PARTS = Set.of(INCLUDE_PRODUCT, INCLUDE_RECOMMENDATIONS, INCLUDE_REVIEWS);
+
     private final ServiceUtil serviceUtil;
     private final ProductCompositeIntegration integration;
+    private final ProductAggregateCache aggregateCache;
+    private final int maxBatchSize;
+    private final int pageSize;
+    private final int maxPageSize;
 
-    public ProductCompositeServiceImpl(ServiceUtil serviceUtil, ProductCompositeIntegration integration) {
+    public ProductCompositeServiceImpl(ServiceUtil serviceUtil, ProductCompositeIntegration integration,
+                                       ProductAggregateCache aggregateCache,
+                                       @Value("${app.batch.max-size:200}") int maxBatchSize,
+                                       @Value("${app.page.size:20}") int pageSize,
+                                       @Value("${app.page.max-size:100}") int maxPageSize) {
         this.serviceUtil = serviceUtil;
         this.integration = integration;
+        this.aggregateCache = aggregateCache;
+        this.maxBatchSize = maxBatchSize;
+        if (pageSize >= maxPageSize) {
+            LOG.warn("Page size {} is not below the max page size {}, uses {}", pageSize, maxPageSize,
+                    maxPageSize - 1);
+        }
+        // One element more than the page size is requested for the first pages, within the max page size
+        this.pageSize = Math.min(pageSize, maxPageSize - 1);
+        this.maxPageSize = maxPageSize;
     }
 
     @Override
@@ -58,15 +91,126 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
     }
 
     @Override
-    public Mono<ProductAggregate> getProduct(int productId) {
+    public Mono<ProductAggregate> getProduct(int productId, List<String> include) {
+        Set<String> parts = parseInclude(include);
+        boolean withRecommendations = parts.contains(INCLUDE_RECOMMENDATIONS);
+        boolean withReviews = parts.contains(INCLUDE_REVIEWS);
+        if (withRecommendations && withReviews) {
+            return getFullProduct(productId);
+        }
+
+        LOG.info("Will get composite product info for product id {} including {}", productId, parts);
+        ProductAggregate cached = aggregateCache.getIfPresent(productId);
+        if (cached != null) {
+            return Mono.just(selectParts(cached, withRecommendations, withReviews));
+        }
+        return StaleParts.collect(staleParts -> Mono.zip(
+                        values -> selectParts(withStaleParts(createProductAggregate((Product) values[0],
+                                        (List<Recommendation>) values[1], (List<Review>) values[2],
+                                        serviceUtil.getServiceAddress()), staleParts),
+                                withRecommendations, withReviews),
+                        integration.getProduct(productId),
+                        withRecommendations ? getFirstRecommendations(productId) : Mono.just(emptyList()),
+                        withReviews ? getFirstReviews(productId) : Mono.just(emptyList())
+                )).doOnError(ex -> LOG.warn("getCompositeProduct failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    private Mono<ProductAggregate> getFullProduct(int productId) {
         LOG.info("Will get composite product info for product id {}", productId);
-        return Mono.zip(
-                        values -> createProductAggregate((Product) values[0], (List<Recommendation>) values[1],
-                                (List<Review>) values[2], serviceUtil.getServiceAddress()),
+        return aggregateCache.get(productId, () -> StaleParts.collect(staleParts -> Mono.zip(
+                        values -> withStaleParts(createProductAggregate((Product) values[0],
+                                (List<Recommendation>) values[1], (List<Review>) values[2],
+                                serviceUtil.getServiceAddress()), staleParts),
                         integration.getProduct(productId),
-                        integration.getRecommendations(productId).collectList(),
-                        integration.getReviews(productId).collectList()
-                ).doOnError(ex -> LOG.warn("getCompositeProduct failed: {}", ex.toString()))
+                        getFirstRecommendations(productId),
+                        getFirstReviews(productId)
+                ))).doOnError(ex -> LOG.warn("getCompositeProduct failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    /**
+     * The product aggregate holds only the first page, one element more is requested to learn
+     * whether there is a next one.
+     */
+    private Mono<List<Recommendation>> getFirstRecommendations(int productId) {
+        return integration.getRecommendations(productId, null, pageSize + 1).collectList();
+    }
+
+    private Mono<List<Review>> getFirstReviews(int productId) {
+        return integration.getReviews(productId, null, pageSize + 1).collectList();
+    }
+
+    @Override
+    public Flux<ProductAggregatePart> getProductStream(int productId) {
+        LOG.info("Will stream composite product info for product id {}", productId);
+        ProductAggregate cached = aggregateCache.getIfPresent(productId);
+        if (cached != null) {
+            // The cached aggregate holds the first pages, the rest is paged in from their cursors
+            return Flux.concat(
+                    Mono.just(ProductAggregatePart.product(selectParts(cached, false, false))),
+                    Flux.fromIterable(cached.getRecommendations()).map(ProductAggregatePart::recommendation),
+                    cached.getRecommendationsCursor() == null ? Flux.empty()
+                            : integration.streamRecommendations(productId, cached.getRecommendationsCursor())
+                            .map(r -> ProductAggregatePart.recommendation(toSummary(r))),
+                    Flux.fromIterable(cached.getReviews()).map(ProductAggregatePart::review),
+                    cached.getReviewsCursor() == null ? Flux.empty()
+                            : integration.streamReviews(productId, cached.getReviewsCursor())
+                            .map(r -> ProductAggregatePart.review(toSummary(r))));
+        }
+
+        // All three calls start at once, the recommendations and reviews are held back only by the
+        // prefetch of mergeSequential until the product header has been emitted.
+        return Flux.mergeSequential(
+                        integration.getProduct(productId)
+                                .map(p -> ProductAggregatePart.product(createProductHeader(p))),
+                        Flux.merge(
+                                integration.streamRecommendations(productId, null)
+                                        .map(r -> ProductAggregatePart.recommendation(toSummary(r))),
+                                integration.streamReviews(productId, null)
+                                        .map(r -> ProductAggregatePart.review(toSummary(r)))))
+                .doOnError(ex -> LOG.warn("getCompositeProductStream failed: {}", ex.toString()))
+                .log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<RecommendationSummary> getRecommendations(int productId, Integer after, Integer limit) {
+        LOG.info("Will get recommendations for product id {} after {}", productId, after);
+        return integration.getRecommendations(productId, after, toPageSize(limit))
+                .map(r -> toSummary(r))
+                .log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<ReviewSummary> getReviews(int productId, Integer after, Integer limit) {
+        LOG.info("Will get reviews for product id {} after {}", productId, after);
+        return integration.getReviews(productId, after, toPageSize(limit))
+                .map(r -> toSummary(r))
+                .log(LOG.getName(), FINE);
+    }
+
+    @Override
+    public Flux<ProductAggregate> getProducts(@RequestBody List<Integer> productIds) {
+        List<Integer> distinctIds = productIds.stream().distinct().toList();
+        if (distinctIds.size() > maxBatchSize) {
+            throw new InvalidInputException("Too many product ids: " + distinctIds.size()
+                    + ", at most " + maxBatchSize + " are allowed");
+        }
+        LOG.info("Will get composite product info for {} product ids", distinctIds.size());
+        // A part that failed for the batch is stale in every aggregate of it
+        return aggregateCache.getAll(distinctIds, missingIds -> StaleParts.collect(staleParts -> Mono.zip(
+                        values -> createProductAggregates((List<Product>) values[0],
+                                (Map<Integer, Collection<Recommendation>>) values[1],
+                                (Map<Integer, Collection<Review>>) values[2], serviceUtil.getServiceAddress())
+                                .stream()
+                                .map(aggregate -> withStaleParts(aggregate, staleParts))
+                                .toList(),
+                        integration.getProducts(missingIds).collectList(),
+                        integration.getRecommendations(missingIds, pageSize + 1)
+                                .collectMultimap(Recommendation::getProductId),
+                        integration.getReviews(missingIds, pageSize + 1).collectMultimap(Review::getProductId)
+                )).flatMapIterable(aggregates -> aggregates))
+                .doOnError(ex -> LOG.warn("getCompositeProducts failed: {}", ex.toString()))
                 .log(LOG.getName(), FINE);
     }
 
@@ -74,33 +218,111 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
     public Mono<Void> deleteProduct(int productId) {
         try {
             LOG.info("Will delete a product aggregate for product id {}", productId);
-            return Mono.zip(
-                            r -> "",
+            // Waits for all three events, zip would cancel the others as soon as one completes empty
+            return Mono.when(
                             integration.deleteProduct(productId),
                             integration.deleteRecommendations(productId),
                             integration.deleteReview(productId)
                     ).doOnError(ex -> LOG.warn("delete failed: {}", ex.toString()))
-                    .log(LOG.getName(), FINE).then();
+                    .log(LOG.getName(), FINE);
         } catch (RuntimeException ex) {
             LOG.warn("deleteCompositeProduct failed: {}", ex.toString());
             throw ex;
         }
     }
 
-    private ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations,
-                                                    List<Review> reviews, String serviceAddress) {
+    private int toPageSize(Integer limit) {
+        if (limit == null) {
+            return pageSize;
+        }
+        if (limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private Set<String> parseInclude(List<String> include) {
+        if (include == null || include.isEmpty()) {
+            return ALL_PARTS;
+        }
+        Set<String> parts = new HashSet<>();
+        for (String part : include) {
+            String normalized = part.trim().toLowerCase();
+            if (!ALL_PARTS.contains(normalized)) {
+                throw new InvalidInputException("Invalid include value: " + part + ", expected one of " + ALL_PARTS);
+            }
+            parts.add(normalized);
+        }
+        return parts;
+    }
+
+    /**
+     * Copies the aggregate without the parts the caller did not ask for, the cached aggregate is never changed.
+     */
+    private ProductAggregate selectParts(ProductAggregate aggregate, boolean withRecommendations,
+                                         boolean withReviews) {
+        return new ProductAggregate(aggregate.getProductId(), aggregate.getName(), aggregate.getWeight(),
+                withRecommendations ? aggregate.getRecommendations() : null,
+                withReviews ? aggregate.getReviews() : null,
+                aggregate.getServiceAddresses(),
+                withRecommendations ? aggregate.getRecommendationsCursor() : null,
+                withReviews ? aggregate.getReviewsCursor() : null,
+                aggregate.getStale());
+    }
+
+    /**
+     * Called once all parts have arrived, so every fallback has been marked by then.
+     */
+    private ProductAggregate withStaleParts(ProductAggregate aggregate, StaleParts staleParts) {
+        aggregate.setStale(staleParts.toList());
+        return aggregate;
+    }
+
+    /**
+     * The multi-id lookups are not paged, each product's lists are sorted and cut to the first page here
+     * so that the batch answers look like the single ones.
+     */
+    private List<ProductAggregate> createProductAggregates(List<Product> products,
+                                                           Map<Integer, Collection<Recommendation>> recommendations,
+                                                           Map<Integer, Collection<Review>> reviews,
+                                                           String serviceAddress) {
+        return products.stream()
+                .map(p -> createProductAggregate(p,
+                        recommendations.getOrDefault(p.getProductId(), emptyList()).stream()
+                                .sorted(Comparator.comparingInt(Recommendation::getRecommendationId))
+                                .limit(pageSize + 1L).collect(Collectors.toList()),
+                        reviews.getOrDefault(p.getProductId(), emptyList()).stream()
+                                .sorted(Comparator.comparingInt(Review::getReviewId))
+                                .limit(pageSize + 1L).collect(Collectors.toList()),
+                        serviceAddress))
+                .collect(Collectors.toList());
+    }
+
+    ProductAggregate createProductAggregate(Product product, List<Recommendation> recommendations,
+                                            List<Review> reviews, String serviceAddress) {
         int productId = product.getProductId();
         String name = product.getName();
         int weight = product.getWeight();
 
+        Integer recommendationsCursor = null;
+        if (recommendations != null && recommendations.size() > pageSize) {
+            recommendations = recommendations.subList(0, pageSize);
+            recommendationsCursor = recommendations.get(pageSize - 1).getRecommendationId();
+        }
+        Integer reviewsCursor = null;
+        if (reviews != null && reviews.size() > pageSize) {
+            reviews = reviews.subList(0, pageSize);
+            reviewsCursor = reviews.get(pageSize - 1).getReviewId();
+        }
+
         List<RecommendationSummary> recommendationSummaries = (recommendations == null) ? null
                 : recommendations.stream()
-                .map(r -> new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent()))
+                .map(r -> toSummary(r))
                 .collect(Collectors.toList());
 
         List<ReviewSummary> reviewSummaries = (reviews == null) ? null
                 : reviews.stream()
-                .map(r -> new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent()))
+                .map(r -> toSummary(r))
                 .collect(Collectors.toList());
 
         String productAddress = product.getServiceAddress();
@@ -112,6 +334,21 @@ public class ProductCompositeServiceImpl implements ProductCompositeService {
                 recommendationAddress);
 
         return new ProductAggregate(productId, name, weight, recommendationSummaries, reviewSummaries,
+                serviceAddresses, recommendationsCursor, reviewsCursor);
+    }
+
+    private ProductAggregate createProductHeader(Product product) {
+        ServiceAddresses serviceAddresses = new ServiceAddresses(serviceUtil.getServiceAddress(),
+                product.getServiceAddress(), null, null);
+        return new ProductAggregate(product.getProductId(), product.getName(), product.getWeight(), null, null,
                 serviceAddresses);
     }
+
+    private RecommendationSummary toSummary(Recommendation r) {
+        return new RecommendationSummary(r.getRecommendationId(), r.getAuthor(), r.getRate(), r.getContent());
+    }
+
+    private ReviewSummary toSummary(Review r) {
+        return new ReviewSummary(r.getReviewId(), r.getAuthor(), r.getSubject(), r.getContent());
+    }
 }
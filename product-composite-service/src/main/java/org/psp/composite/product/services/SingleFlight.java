@@ -0,0 +1,67 @@
+package org.psp.composite.product.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight downstream call among all concurrent subscribers asking for the same key.
+ * The shared publisher is dropped as soon as it terminates, so a subscriber arriving afterwards
+ * triggers a fresh call and never sees a stale result. The call is cancelled once the last of its
+ * subscribers cancels, e.g. on a client disconnect or a deadline, and is not kept running for nobody.
+ */
+public class SingleFlight<K> {
+    private static final Logger LOG = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final String name;
+    private final ConcurrentMap<K, Flux<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executedCounter;
+    private final Counter coalescedCounter;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.executedCounter = Counter.builder("composite.singleflight.calls")
+                .description("Downstream calls made or joined through single-flight")
+                .tag("operation", name)
+                .tag("result", "executed")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("composite.singleflight.calls")
+                .description("Downstream calls made or joined through single-flight")
+                .tag("operation", name)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> mono(K key, Supplier<Mono<T>> call) {
+        return flux(key, () -> call.get().flux()).singleOrEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> flux(K key, Supplier<Flux<T>> call) {
+        return Flux.defer(() -> {
+            AtomicReference<Flux<T>> self = new AtomicReference<>();
+            Flux<T> candidate = Flux.defer(call)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .replay()
+                    .refCount(1);
+            self.set(candidate);
+
+            Flux<T> existing = (Flux<T>) inFlight.putIfAbsent(key, candidate);
+            if (existing != null) {
+                LOG.debug("Joins the in-flight {} call for key {}", name, key);
+                coalescedCounter.increment();
+                return existing;
+            }
+            executedCounter.increment();
+            return candidate;
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package org.psp.composite.product.services;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+/**
+ * Collects the parts of one product aggregate that were served from a last known good copy. The
+ * composite service puts a fresh instance into the Reactor context of each aggregate it assembles, and
+ * the integration marks a part when it falls back; calls made outside of an aggregate are not marked.
+ */
+public final class StaleParts {
+    private static final Object KEY = StaleParts.class;
+
+    private final Set<String> parts = new ConcurrentSkipListSet<>();
+
+    private StaleParts() {
+    }
+
+    /**
+     * Subscribes to the chain built by assembler with a fresh instance in its context.
+     */
+    public static <T> Mono<T> collect(Function<StaleParts, Mono<T>> assembler) {
+        return Mono.defer(() -> {
+            StaleParts staleParts = new StaleParts();
+            return assembler.apply(staleParts).contextWrite(Context.of(KEY, staleParts));
+        });
+    }
+
+    /**
+     * Emits value after marking the part as stale in the subscriber's context, if there is one.
+     */
+    public static <T> Mono<T> mark(String part, T value) {
+        return Mono.deferContextual(context -> {
+            context.<StaleParts>getOrEmpty(KEY).ifPresent(staleParts -> staleParts.parts.add(part));
+            return Mono.just(value);
+        });
+    }
+
+    /**
+     * Returns the stale parts in alphabetical order, or null if all parts are fresh.
+     */
+    public List<String> toList() {
+        return parts.isEmpty() ? null : List.copyOf(parts);
+    }
+}
@@ -0,0 +1,60 @@
+package org.psp.composite.product.services;
+
+import org.junit.jupiter.api.Test;
+import org.psp.api.composite.product.ProductAggregate;
+import org.psp.api.composite.product.ReviewSummary;
+import org.psp.api.core.event.Event;
+import org.psp.api.core.review.Review;
+import org.psp.util.messaging.EventCodec;
+import org.psp.util.messaging.EventMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.psp.api.core.event.Event.Type.CREATE;
+import static reactor.core.publisher.Mono.just;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = {TestSecurityConfig.class},
+        properties = {
+                "spring.security.oauth2.resourceserver.jwt.issuer-uri=",
+                "spring.main.allow-bean-definition-overriding=true",
+                "eureka.client.enabled=false"
+        })
+@ActiveProfiles("binary_events")
+@Import({TestChannelBinderConfiguration.class})
+public class BinaryEventMessagingTests {
+    @Autowired
+    private WebTestClient client;
+    @Autowired
+    private OutputDestination target;
+
+    @Test
+    void createCompositeProductPublishesBinaryEvents() {
+        ProductAggregate composite = new ProductAggregate(1, "name", 1, null,
+                singletonList(new ReviewSummary(1, "a", "s", "c")), null);
+        client.post()
+                .uri("/product-composite")
+                .body(just(composite), ProductAggregate.class)
+                .exchange()
+                .expectStatus().isAccepted();
+
+        Message<byte[]> message = target.receive(0, "reviews");
+        assertNotNull(message);
+        assertEquals(EventMessageConverter.CONTENT_TYPE,
+                String.valueOf(message.getHeaders().get(MessageHeaders.CONTENT_TYPE)));
+        Event<Integer, Object> event = EventCodec.decode(message.getPayload());
+        assertEquals(CREATE, event.getEventType());
+        assertEquals(1, event.getKey());
+        assertEquals(new Review(1, 1, "a", "s", "c", null), event.getData());
+    }
+}
@@ -0,0 +1,206 @@
+package org.psp.composite.product.services;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DownstreamCallPolicyTests {
+    private MeterRegistry meterRegistry;
+    private AtomicInteger attempts;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        attempts = new AtomicInteger();
+    }
+
+    @Test
+    void slowCallFailsAfterDeadline() {
+        DownstreamCallPolicy policy = policy(false);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                policy.mono(() -> Mono.just("late").delayElement(Duration.ofSeconds(5))).block());
+
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+    }
+
+    @Test
+    void deadlineFollowsTheRecentLatency() {
+        DownstreamCallPolicy policy = policy(false);
+        for (int i = 0; i < 20; i++) {
+            policy.mono(() -> Mono.just("warm-up").delayElement(Duration.ofMillis(10))).block();
+        }
+
+        long start = System.nanoTime();
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                policy.mono(() -> Mono.just("late").delayElement(Duration.ofMillis(350))).block());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertInstanceOf(TimeoutException.class, ex.getCause());
+        assertTrue(elapsed.compareTo(Duration.ofMillis(300)) < 0, "Took " + elapsed);
+    }
+
+    @Test
+    void attemptCutByTheDeadlineIsRecorded() {
+        DownstreamCallPolicy policy = policy(false);
+
+        assertThrows(RuntimeException.class, () ->
+                policy.mono(() -> Mono.just("late").delayElement(Duration.ofSeconds(5))).block());
+
+        assertEquals(1, latencyTimer().count());
+        assertTrue(latencyTimer().max(MILLISECONDS) >= 400);
+    }
+
+    @Test
+    void fluxDeadlineCoversTheWholeStream() {
+        DownstreamCallPolicy policy = policy(false);
+
+        assertThrows(RuntimeException.class, () ->
+                policy.flux(() -> Flux.just(1, 2, 3).delayElements(Duration.ofMillis(150))).collectList().block());
+    }
+
+    @Test
+    void slowFirstAttemptIsHedged() {
+        DownstreamCallPolicy policy = policy(true);
+        for (int i = 0; i < 20; i++) {
+            policy.mono(() -> Mono.just("warm-up").delayElement(Duration.ofMillis(10))).block();
+        }
+
+        long start = System.nanoTime();
+        String result = policy.mono(() -> attempts.incrementAndGet() == 1
+                ? Mono.just("slow").delayElement(Duration.ofMillis(300))
+                : Mono.just("hedged").delayElement(Duration.ofMillis(10))).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals("hedged", result);
+        assertEquals(2, attempts.get());
+        assertTrue(elapsed.compareTo(Duration.ofMillis(300)) < 0, "Took " + elapsed);
+        assertEquals(1.0, meterRegistry.get("composite.downstream.hedges").counter().count());
+        assertEquals(22, latencyTimer().count(), "The cancelled slow attempt is recorded too");
+        assertTrue(latencyTimer().max(MILLISECONDS) >= 30, "The hedged answer is timed from the start");
+    }
+
+    @Test
+    void hedgeIsNotSentWithoutAFreePermit() {
+        Bulkhead bulkhead = Bulkhead.of("test", BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        DownstreamCallPolicy policy = policy(true, CircuitBreaker.ofDefaults("test"), bulkhead);
+        for (int i = 0; i < 20; i++) {
+            policy.mono(() -> Mono.just("warm-up").delayElement(Duration.ofMillis(10))).block();
+        }
+
+        String result = policy.mono(() -> attempts.incrementAndGet() == 1
+                ? Mono.just("slow").delayElement(Duration.ofMillis(60))
+                : Mono.just("hedged")).block();
+
+        assertEquals("slow", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, meterRegistry.get("composite.downstream.hedges").counter().count());
+        assertEquals(1, bulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void noHedgeWithoutLatencySamples() {
+        DownstreamCallPolicy policy = policy(true);
+
+        List<Integer> result = policy.flux(() -> {
+            attempts.incrementAndGet();
+            return Flux.just(1, 2).delayElements(Duration.ofMillis(50));
+        }).collectList().block();
+
+        assertEquals(List.of(1, 2), result);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheService() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("test", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .build());
+        DownstreamCallPolicy policy = policy(circuitBreaker, Bulkhead.ofDefaults("test"));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> policy.mono(() -> {
+                attempts.incrementAndGet();
+                return Mono.error(new IllegalStateException("Service down"));
+            }).block());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        long start = System.nanoTime();
+        assertThrows(CallNotPermittedException.class, () -> policy.mono(() -> {
+            attempts.incrementAndGet();
+            return Mono.just("late").delayElement(Duration.ofSeconds(5));
+        }).block());
+
+        assertEquals(4, attempts.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(100)) < 0);
+    }
+
+    @Test
+    void timeoutsCountAsFailures() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("test");
+        DownstreamCallPolicy policy = policy(circuitBreaker, Bulkhead.ofDefaults("test"));
+
+        assertThrows(RuntimeException.class, () ->
+                policy.mono(() -> Mono.just("late").delayElement(Duration.ofSeconds(5))).block());
+
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void callsBeyondTheBulkheadLimitAreRejected() {
+        Bulkhead bulkhead = Bulkhead.of("test", BulkheadConfig.custom()
+                .maxConcurrentCalls(2)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        DownstreamCallPolicy policy = policy(CircuitBreaker.ofDefaults("test"), bulkhead);
+        Mono<String> slowCall = policy.mono(() -> Mono.just("slow").delayElement(Duration.ofMillis(100)));
+
+        List<String> results = Flux.merge(slowCall, slowCall, slowCall.onErrorReturn(BulkheadFullException.class,
+                "rejected")).collectList().block();
+
+        assertEquals(List.of("rejected", "slow", "slow"), results);
+    }
+
+    private DownstreamCallPolicy policy(boolean hedgeEnabled) {
+        return policy(hedgeEnabled, CircuitBreaker.ofDefaults("test"), Bulkhead.ofDefaults("test"));
+    }
+
+    private DownstreamCallPolicy policy(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        return policy(false, circuitBreaker, bulkhead);
+    }
+
+    private DownstreamCallPolicy policy(boolean hedgeEnabled, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        DownstreamProperties.Settings settings = new DownstreamProperties.Settings(Duration.ofMillis(400),
+                Duration.ofMillis(100), 0.999, 3, hedgeEnabled, 0.95, Duration.ofMillis(20));
+        return new DownstreamCallPolicy("test", settings, circuitBreaker, bulkhead, meterRegistry);
+    }
+
+    private Timer latencyTimer() {
+        return meterRegistry.get("composite.downstream.hedging.latency").timer();
+    }
+}
@@ -0,0 +1,108 @@
+package org.psp.composite.product.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventJournalTests {
+    @TempDir
+    Path dir;
+
+    @Test
+    void uncommittedEntriesAreReadAgainAfterRestart() throws IOException {
+        Path file = dir.resolve("events.journal");
+        try (EventJournal journal = journal(file, 1 << 20)) {
+            journal.append("products-out-0", 1, payload("a"));
+            journal.append("reviews-out-0", 2, payload("b"));
+            journal.append("products-out-0", 3, payload("c"));
+
+            List<EventJournal.Entry> first = journal.read(1);
+            assertEquals(1, first.size());
+            journal.commit(first.get(0).nextPosition());
+        }
+
+        try (EventJournal journal = journal(file, 1 << 20)) {
+            List<EventJournal.Entry> entries = journal.read(10);
+            assertEquals(2, entries.size());
+            assertEquals("reviews-out-0", entries.get(0).bindingName());
+            assertEquals(2, entries.get(0).partitionKey());
+            assertEquals("b", new String(entries.get(0).payload(), StandardCharsets.UTF_8));
+            assertEquals("c", new String(entries.get(1).payload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void journalIsTruncatedWhenEverythingIsCommitted() throws IOException {
+        Path file = dir.resolve("events.journal");
+        try (EventJournal journal = journal(file, 1 << 20)) {
+            journal.append("products-out-0", 1, payload("a"));
+            List<EventJournal.Entry> entries = journal.read(10);
+            journal.commit(entries.get(0).nextPosition());
+
+            assertEquals(0, journal.uncommittedBytes());
+            assertEquals(0, Files.size(file));
+            assertTrue(journal.read(10).isEmpty());
+        }
+    }
+
+    @Test
+    void committedPartIsCompactedAway() throws IOException {
+        Path file = dir.resolve("events.journal");
+        try (EventJournal journal = journal(file, 64)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append("products-out-0", i, payload("event-" + i));
+            }
+            List<EventJournal.Entry> entries = journal.read(8);
+            journal.commit(entries.get(7).nextPosition());
+
+            assertEquals(journal.uncommittedBytes(), Files.size(file));
+            List<EventJournal.Entry> rest = journal.read(10);
+            assertEquals(List.of(8, 9), rest.stream().map(EventJournal.Entry::partitionKey).toList());
+
+            journal.append("products-out-0", 10, payload("event-10"));
+            assertEquals(3, journal.read(10).size());
+        }
+    }
+
+    @Test
+    void tornRecordAtTheEndIsDroppedOnOpen() throws IOException {
+        Path file = dir.resolve("events.journal");
+        try (EventJournal journal = journal(file, 1 << 20)) {
+            journal.append("products-out-0", 1, payload("a"));
+            journal.append("products-out-0", 2, payload("b"));
+        }
+        long size = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (EventJournal journal = journal(file, 1 << 20)) {
+            assertEquals(2, journal.read(10).size());
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    void appendFailsWhenTheJournalIsFull() throws IOException {
+        try (EventJournal journal = new EventJournal(dir.resolve("events.journal"), false, 64, 1 << 20)) {
+            journal.append("products-out-0", 1, payload("a"));
+            assertThrows(IllegalStateException.class, () -> journal.append("products-out-0", 2, new byte[64]));
+        }
+    }
+
+    private EventJournal journal(Path file, long compactThreshold) {
+        return new EventJournal(file, false, 1 << 20, compactThreshold);
+    }
+
+    private byte[] payload(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
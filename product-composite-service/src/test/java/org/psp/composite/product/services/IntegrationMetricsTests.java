@@ -0,0 +1,82 @@
+package org.psp.composite.product.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IntegrationMetricsTests {
+    private MeterRegistry meterRegistry;
+    private IntegrationMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new IntegrationMetrics(meterRegistry);
+    }
+
+    @Test
+    void callsAreTimedByOutcome() {
+        metrics.timed("product", "getProduct", Mono.just(1)).block();
+        metrics.timed("product", "getProduct", Mono.empty()).block();
+        assertThrows(RuntimeException.class, () -> metrics.timed("product", "getProduct",
+                Mono.error(WebClientResponseException.create(HttpStatus.NOT_FOUND.value(), "Not Found", null, null,
+                        null))).block());
+        assertThrows(RuntimeException.class, () -> metrics.timed("review", "getReviews",
+                Flux.error(new TimeoutException("No answer"))).blockLast());
+        metrics.timed("review", "getReviews", Flux.just(1, 2, 3)).take(1).blockLast();
+
+        assertEquals(2, callCount("product", "getProduct", IntegrationMetrics.SUCCESS));
+        assertEquals(1, callCount("product", "getProduct", IntegrationMetrics.CLIENT_ERROR));
+        assertEquals(1, callCount("review", "getReviews", IntegrationMetrics.TIMEOUT));
+        assertEquals(1, callCount("review", "getReviews", IntegrationMetrics.CANCELLED));
+    }
+
+    @Test
+    void eachSubscriptionIsTimed() {
+        Mono<Integer> call = metrics.timed("product", "getProduct", Mono.just(1));
+
+        call.block();
+        call.block();
+
+        assertEquals(2, callCount("product", "getProduct", IntegrationMetrics.SUCCESS));
+    }
+
+    @Test
+    void sendsAreTimedByOutcome() {
+        metrics.timedSend("products-out-0", () -> true);
+        assertFalse(metrics.timedSend("products-out-0", () -> false));
+        assertThrows(IllegalStateException.class, () -> metrics.timedSend("products-out-0", () -> {
+            throw new IllegalStateException("Broker down");
+        }));
+
+        assertEquals(1, sendCount(IntegrationMetrics.SUCCESS));
+        assertEquals(1, sendCount(IntegrationMetrics.REJECTED));
+        assertEquals(1, sendCount(IntegrationMetrics.ERROR));
+    }
+
+    private long callCount(String dependency, String operation, String outcome) {
+        Timer timer = meterRegistry.find("composite.downstream.calls")
+                .tags("dependency", dependency, "operation", operation, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private long sendCount(String outcome) {
+        Timer timer = meterRegistry.find("composite.events.sent")
+                .tags("binding", "products-out-0", "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,175 @@
+package org.psp.composite.product.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.recommendation.Recommendation;
+import org.psp.api.exceptions.NotFoundException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LastKnownGoodTests {
+    private static final String PRODUCT = "{\"productId\":1,\"name\":\"name\",\"weight\":1}";
+    private static final String RECOMMENDATIONS = "[" +
+            "{\"productId\":1,\"recommendationId\":1,\"author\":\"a\",\"rate\":1,\"content\":\"c\"}," +
+            "{\"productId\":1,\"recommendationId\":2,\"author\":\"a\",\"rate\":1,\"content\":\"c\"}," +
+            "{\"productId\":1,\"recommendationId\":3,\"author\":\"a\",\"rate\":1,\"content\":\"c\"}]";
+
+    @TempDir
+    Path dir;
+
+    private MeterRegistry meterRegistry;
+    private HttpStatus status;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        status = HttpStatus.OK;
+    }
+
+    @Test
+    void failedProductCallServesTheLastKnownCopy() {
+        ProductCompositeIntegration integration = integration("");
+        integration.getProduct(1).block();
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        assertEquals(List.of("product"), staleParts(integration.getProduct(1)));
+        assertEquals("name", integration.getProduct(1).block().getName());
+        assertEquals(2.0, meterRegistry.get("composite.last-known-good.served").tag("dependency", "product")
+                .counter().count());
+    }
+
+    @Test
+    void failedProductCallWithoutCopyFails() {
+        ProductCompositeIntegration integration = integration("");
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        assertThrows(RuntimeException.class, () -> integration.getProduct(1).block());
+    }
+
+    @Test
+    void productNotFoundIsForgotten() {
+        ProductCompositeIntegration integration = integration("");
+        integration.getProduct(1).block();
+
+        status = HttpStatus.NOT_FOUND;
+        assertThrows(NotFoundException.class, () -> integration.getProduct(1).block());
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+        assertThrows(RuntimeException.class, () -> integration.getProduct(1).block());
+    }
+
+    @Test
+    void failedFirstPageServesTheLastKnownPage() {
+        ProductCompositeIntegration integration = integration("");
+        assertEquals(3, integration.getRecommendations(1, null, 3).collectList().block().size());
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        assertEquals(List.of("recommendations"),
+                staleParts(integration.getRecommendations(1, null, 2).collectList()));
+        List<Recommendation> page = integration.getRecommendations(1, null, 2).collectList().block();
+        assertEquals(List.of(1, 2), page.stream().map(Recommendation::getRecommendationId).toList());
+        assertTrue(integration.getRecommendations(1, 2, 2).collectList().block().isEmpty());
+    }
+
+    @Test
+    void failedStreamPageEndsTheStreamWithTheError() {
+        ProductCompositeIntegration integration = integration("");
+        assertEquals(3, integration.streamRecommendations(1, null).collectList().block().size());
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        assertThrows(RuntimeException.class, () -> integration.streamRecommendations(1, null).collectList().block());
+    }
+
+    @Test
+    void failedBatchServesTheLastKnownPagesAsStale() {
+        ProductCompositeIntegration integration = integration("");
+        integration.getRecommendations(1, null, 3).collectList().block();
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        assertEquals(List.of("recommendations"),
+                staleParts(integration.getRecommendations(List.of(1, 2), 2).collectList()));
+        List<Recommendation> pages = integration.getRecommendations(List.of(1, 2), 2).collectList().block();
+        assertEquals(List.of(1, 2), pages.stream().map(Recommendation::getRecommendationId).toList());
+    }
+
+    @Test
+    void failedBatchWithoutCopiesFails() {
+        ProductCompositeIntegration integration = integration("");
+        integration.getRecommendations(1, null, 3).collectList().block();
+
+        status = HttpStatus.NOT_FOUND;
+        assertThrows(NotFoundException.class,
+                () -> integration.getRecommendations(List.of(1, 2), 3).collectList().block());
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+        assertThrows(RuntimeException.class,
+                () -> integration.getRecommendations(List.of(2, 3), 3).collectList().block());
+    }
+
+    @Test
+    void copiesOnDiskSurviveARestart() {
+        integration(dir.toString()).getProduct(1).block();
+
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+        Product product = integration(dir.toString()).getProduct(1).block();
+
+        assertEquals(1, product.getProductId());
+        assertEquals("name", product.getName());
+    }
+
+    private List<String> staleParts(Mono<?> call) {
+        return StaleParts.collect(staleParts -> call.then(Mono.fromSupplier(() ->
+                Optional.ofNullable(staleParts.toList())))).block().orElse(List.of());
+    }
+
+    private ProductCompositeIntegration integration(String lastKnownDirectory) {
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(request -> Mono.just(response(
+                request.url().getPath().startsWith("/product") ? PRODUCT : RECOMMENDATIONS)));
+        DownstreamProperties.Settings settings = new DownstreamProperties.Settings(Duration.ofSeconds(1),
+                Duration.ofSeconds(1), 0.999, 3, false, 0.95, Duration.ofMillis(20));
+        return new ProductCompositeIntegration(Schedulers.immediate(), webClient, new ObjectMapper(), null,
+                Optional.empty(), new ProductAggregateCache(100, Duration.ofMinutes(1), meterRegistry),
+                new DownstreamProperties(settings, settings, settings), CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), meterRegistry, new IntegrationMetrics(meterRegistry), 100, 100,
+                lastKnownDirectory, DataSize.ofKilobytes(8));
+    }
+
+    private ClientResponse response(String body) {
+        if (status != HttpStatus.OK) {
+            return ClientResponse.create(status)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"message\":\"" + status.getReasonPhrase() + "\"}")
+                    .build();
+        }
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package org.psp.composite.product.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedSlotFileTests {
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsSurviveReopening() {
+        Path path = dir.resolve("product.slots");
+        MappedSlotFile file = new MappedSlotFile(path, 8, 64);
+        file.put(1, payload("one"));
+        file.put(2, payload("two"));
+        file.put(1, payload("uno"));
+
+        MappedSlotFile reopened = new MappedSlotFile(path, 8, 64);
+
+        assertArrayEquals(payload("uno"), reopened.get(1));
+        assertArrayEquals(payload("two"), reopened.get(2));
+        assertNull(reopened.get(3));
+    }
+
+    @Test
+    void recordIsReplacedByKeyInTheSameSlot() {
+        MappedSlotFile file = new MappedSlotFile(dir.resolve("product.slots"), 8, 64);
+        file.put(1, payload("one"));
+        file.put(9, payload("nine"));
+
+        assertNull(file.get(1));
+        assertArrayEquals(payload("nine"), file.get(9));
+    }
+
+    @Test
+    void removedAndOversizedRecordsAreNotReturned() {
+        MappedSlotFile file = new MappedSlotFile(dir.resolve("product.slots"), 8, 64);
+        file.put(1, payload("one"));
+        file.remove(1);
+
+        assertNull(file.get(1));
+        assertFalse(file.put(2, new byte[64]));
+        assertNull(file.get(2));
+        assertArrayEquals(new byte[0], putAndGet(file, 0, new byte[0]));
+    }
+
+    @Test
+    void corruptRecordReadsAsEmpty() throws IOException {
+        Path path = dir.resolve("product.slots");
+        MappedSlotFile file = new MappedSlotFile(path, 8, 64);
+        assertTrue(file.put(1, payload("one")));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(payload("x")), 64 + 12);
+        }
+
+        assertNull(new MappedSlotFile(path, 8, 64).get(1));
+    }
+
+    @Test
+    void fileWithAnotherLayoutStartsEmpty() {
+        Path path = dir.resolve("product.slots");
+        new MappedSlotFile(path, 8, 64).put(1, payload("one"));
+
+        assertNull(new MappedSlotFile(path, 16, 64).get(1));
+    }
+
+    private byte[] putAndGet(MappedSlotFile file, int key, byte[] payload) {
+        file.put(key, payload);
+        return file.get(key);
+    }
+
+    private byte[] payload(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -48,6 +48,8 @@ public class MessagingTests {
     private WebTestClient client;
     @Autowired
     private OutputDestination target;
+    @Autowired
+    private ProductAggregateCache aggregateCache;
 
     @BeforeEach
     void setUp() {
@@ -125,6 +127,18 @@ public class MessagingTests {
         assertTrue(sameEventExceptCreatedAt(expectedReviewEvent).matches(reviewMessages.get(0)));
     }
 
+    @Test
+    void deleteCompositeProductInvalidatesCache() {
+        ProductAggregate cached = new ProductAggregate(2, "cached", 1, null, null, null);
+        ProductAggregate reloaded = new ProductAggregate(2, "reloaded", 1, null, null, null);
+        assertEquals("cached", aggregateCache.get(2, () -> just(cached)).block().getName());
+        assertEquals("cached", aggregateCache.get(2, () -> just(reloaded)).block().getName());
+
+        deleteAndVerifyProduct(2, ACCEPTED);
+
+        assertEquals("reloaded", aggregateCache.get(2, () -> just(reloaded)).block().getName());
+    }
+
     private void purgeMessages(String bindingName) {
         getMessages(bindingName);
     }
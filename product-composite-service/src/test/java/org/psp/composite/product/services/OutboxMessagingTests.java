@@ -0,0 +1,66 @@
+package org.psp.composite.product.services;
+
+import org.junit.jupiter.api.Test;
+import org.psp.api.composite.product.ProductAggregate;
+import org.psp.api.core.event.Event;
+import org.psp.api.core.product.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.psp.api.core.event.Event.Type.CREATE;
+import static org.psp.composite.product.services.IsSameEvent.sameEventExceptCreatedAt;
+import static reactor.core.publisher.Mono.just;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = {TestSecurityConfig.class},
+        properties = {
+                "spring.security.oauth2.resourceserver.jwt.issuer-uri=",
+                "spring.main.allow-bean-definition-overriding=true",
+                "eureka.client.enabled=false",
+                "app.outbox.enabled=true",
+                "app.outbox.poll-interval=20ms"
+        })
+@Import({TestChannelBinderConfiguration.class})
+public class OutboxMessagingTests {
+    @Autowired
+    private WebTestClient client;
+    @Autowired
+    private OutputDestination target;
+
+    @DynamicPropertySource
+    static void outboxProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path dir = Files.createTempDirectory("outbox");
+        registry.add("app.outbox.path", () -> dir.resolve("events.journal").toString());
+    }
+
+    @Test
+    void createCompositeProductIsRelayedFromTheOutbox() {
+        ProductAggregate composite = new ProductAggregate(1, "name", 1, null, null, null);
+        client.post()
+                .uri("/product-composite")
+                .body(just(composite), ProductAggregate.class)
+                .exchange()
+                .expectStatus().isAccepted();
+
+        Message<byte[]> message = target.receive(5000, "products");
+        assertNotNull(message);
+        assertEquals(1, message.getHeaders().get("partitionKey"));
+        Event<Integer, Product> expectedEvent = new Event<>(CREATE, composite.getProductId(),
+                new Product(composite.getProductId(), composite.getName(), composite.getWeight(), null));
+        assertTrue(sameEventExceptCreatedAt(expectedEvent).matches(new String(message.getPayload())));
+    }
+}
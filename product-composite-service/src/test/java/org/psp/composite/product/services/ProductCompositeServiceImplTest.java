@@ -2,6 +2,7 @@ package org.psp.composite.product.services;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.psp.api.composite.product.ProductAggregatePart;
 import org.psp.api.core.product.Product;
 import org.psp.api.core.recommendation.Recommendation;
 import org.psp.api.core.review.Review;
@@ -16,7 +17,16 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 
@@ -25,12 +35,21 @@ classes = {TestSecurityConfig.class},
 properties = {
         "spring.security.oauth2.resourceserver.jwt.issuer-uri=",
         "spring.main.allow-bean-definition-overriding=true",
-        "eureka.client.enabled=false"
+        "eureka.client.enabled=false",
+        "app.page.size=2"
 })
 class ProductCompositeServiceImplTest {
     private static final int PRODUCT_ID_OK = 1;
     private static final int PRODUCT_ID_NOT_FOUND = 2;
     private static final int PRODUCT_ID_INVALID = 3;
+    private static final int PRODUCT_ID_CACHED = 4;
+    private static final int PRODUCT_ID_BATCH_1 = 5;
+    private static final int PRODUCT_ID_BATCH_2 = 6;
+    private static final int PRODUCT_ID_PARTIAL = 7;
+    private static final int PRODUCT_ID_STREAM = 8;
+    private static final int PRODUCT_ID_PAGED = 9;
+    private static final int PRODUCT_ID_STALE = 10;
+    private static final int PRODUCT_ID_BATCH_STALE = 11;
 
     @Autowired
     private WebTestClient client;
@@ -41,11 +60,71 @@ class ProductCompositeServiceImplTest {
     public void setUp() {
         when(compositeIntegration.getProduct(PRODUCT_ID_OK))
                 .thenReturn(Mono.just(new Product(PRODUCT_ID_OK, "name", 1, "mock-address")));
-        when(compositeIntegration.getRecommendations(PRODUCT_ID_OK)).thenReturn(Flux.fromIterable(singletonList(
+        when(compositeIntegration.getRecommendations(eq(PRODUCT_ID_OK), isNull(), anyInt()))
+                .thenReturn(Flux.fromIterable(singletonList(
                 new Recommendation(PRODUCT_ID_OK, 1, "author", 1, "content", "mock-address"))));
-        when(compositeIntegration.getReviews(PRODUCT_ID_OK)).thenReturn(Flux.fromIterable(singletonList(
+        when(compositeIntegration.getReviews(eq(PRODUCT_ID_OK), isNull(), anyInt()))
+                .thenReturn(Flux.fromIterable(singletonList(
                 new Review(PRODUCT_ID_OK, 1, "author", "subject", "content", "mock-address"))));
 
+        when(compositeIntegration.getProduct(PRODUCT_ID_CACHED))
+                .thenReturn(Mono.just(new Product(PRODUCT_ID_CACHED, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendations(eq(PRODUCT_ID_CACHED), isNull(), anyInt()))
+                .thenReturn(Flux.empty());
+        when(compositeIntegration.getReviews(eq(PRODUCT_ID_CACHED), isNull(), anyInt()))
+                .thenReturn(Flux.empty());
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_PARTIAL))
+                .thenReturn(Mono.just(new Product(PRODUCT_ID_PARTIAL, "name", 1, "mock-address")));
+        when(compositeIntegration.getReviews(eq(PRODUCT_ID_PARTIAL), isNull(), anyInt()))
+                .thenReturn(Flux.fromIterable(singletonList(
+                new Review(PRODUCT_ID_PARTIAL, 1, "author", "subject", "content", "mock-address"))));
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_STREAM))
+                .thenReturn(Mono.just(new Product(PRODUCT_ID_STREAM, "name", 1, "mock-address")));
+        when(compositeIntegration.streamRecommendations(PRODUCT_ID_STREAM, null)).thenReturn(Flux.just(
+                new Recommendation(PRODUCT_ID_STREAM, 1, "author", 1, "content", "mock-address"),
+                new Recommendation(PRODUCT_ID_STREAM, 2, "author", 1, "content", "mock-address")));
+        when(compositeIntegration.streamReviews(PRODUCT_ID_STREAM, null)).thenReturn(Flux.just(
+                new Review(PRODUCT_ID_STREAM, 1, "author", "subject", "content", "mock-address")));
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_PAGED))
+                .thenReturn(Mono.just(new Product(PRODUCT_ID_PAGED, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendations(PRODUCT_ID_PAGED, null, 3)).thenReturn(Flux.just(
+                new Recommendation(PRODUCT_ID_PAGED, 1, "author", 1, "content", "mock-address"),
+                new Recommendation(PRODUCT_ID_PAGED, 2, "author", 1, "content", "mock-address"),
+                new Recommendation(PRODUCT_ID_PAGED, 3, "author", 1, "content", "mock-address")));
+        when(compositeIntegration.getReviews(PRODUCT_ID_PAGED, null, 3)).thenReturn(Flux.just(
+                new Review(PRODUCT_ID_PAGED, 1, "author", "subject", "content", "mock-address")));
+        when(compositeIntegration.getRecommendations(PRODUCT_ID_PAGED, 2, 100)).thenReturn(Flux.just(
+                new Recommendation(PRODUCT_ID_PAGED, 3, "author", 1, "content", "mock-address")));
+
+        when(compositeIntegration.getProduct(PRODUCT_ID_STALE))
+                .thenReturn(Mono.just(new Product(PRODUCT_ID_STALE, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendations(eq(PRODUCT_ID_STALE), isNull(), anyInt()))
+                .thenReturn(Flux.empty());
+        when(compositeIntegration.getReviews(eq(PRODUCT_ID_STALE), isNull(), anyInt()))
+                .thenReturn(StaleParts.mark("reviews", List.of(
+                        new Review(PRODUCT_ID_STALE, 1, "author", "subject", "content", "mock-address")))
+                        .flatMapIterable(reviews -> reviews));
+
+        List<Integer> batchIds = List.of(PRODUCT_ID_BATCH_2, PRODUCT_ID_BATCH_1);
+        when(compositeIntegration.getProducts(batchIds)).thenReturn(Flux.just(
+                new Product(PRODUCT_ID_BATCH_1, "name", 1, "mock-address"),
+                new Product(PRODUCT_ID_BATCH_2, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendations(eq(batchIds), anyInt())).thenReturn(Flux.just(
+                new Recommendation(PRODUCT_ID_BATCH_1, 1, "author", 1, "content", "mock-address"),
+                new Recommendation(PRODUCT_ID_BATCH_1, 2, "author", 1, "content", "mock-address")));
+        when(compositeIntegration.getReviews(eq(batchIds), anyInt())).thenReturn(Flux.just(
+                new Review(PRODUCT_ID_BATCH_2, 1, "author", "subject", "content", "mock-address")));
+
+        List<Integer> staleBatchIds = List.of(PRODUCT_ID_BATCH_STALE);
+        when(compositeIntegration.getProducts(staleBatchIds)).thenReturn(Flux.just(
+                new Product(PRODUCT_ID_BATCH_STALE, "name", 1, "mock-address")));
+        when(compositeIntegration.getRecommendations(eq(staleBatchIds), anyInt())).thenReturn(
+                StaleParts.mark("recommendations", List.<Recommendation>of()).flatMapIterable(r -> r));
+        when(compositeIntegration.getReviews(eq(staleBatchIds), anyInt())).thenReturn(Flux.empty());
+
         when(compositeIntegration.getProduct(PRODUCT_ID_NOT_FOUND)).thenThrow(
                 new NotFoundException("NOT FOUND: " + PRODUCT_ID_NOT_FOUND));
 
@@ -61,6 +140,152 @@ class ProductCompositeServiceImplTest {
                 .jsonPath("$.reviews.length()").isEqualTo(1);
     }
 
+    @Test
+    public void getProductFromCache() {
+        getAndVerifyProduct(PRODUCT_ID_CACHED, HttpStatus.OK)
+                .jsonPath("$.productId").isEqualTo(PRODUCT_ID_CACHED);
+        getAndVerifyProduct(PRODUCT_ID_CACHED, HttpStatus.OK)
+                .jsonPath("$.productId").isEqualTo(PRODUCT_ID_CACHED);
+
+        verify(compositeIntegration, times(1)).getProduct(PRODUCT_ID_CACHED);
+    }
+
+    @Test
+    public void getProductWithStaleParts() {
+        getAndVerifyProduct(PRODUCT_ID_STALE, HttpStatus.OK)
+                .jsonPath("$.reviews.length()").isEqualTo(1)
+                .jsonPath("$.stale.length()").isEqualTo(1)
+                .jsonPath("$.stale[0]").isEqualTo("reviews");
+        getAndVerifyProduct(PRODUCT_ID_STALE, HttpStatus.OK)
+                .jsonPath("$.stale[0]").isEqualTo("reviews");
+
+        verify(compositeIntegration, times(2)).getProduct(PRODUCT_ID_STALE);
+    }
+
+    @Test
+    public void freshProductHasNoStaleParts() {
+        getAndVerifyProduct(PRODUCT_ID_OK, HttpStatus.OK)
+                .jsonPath("$.stale").doesNotExist();
+    }
+
+    @Test
+    public void getProductWithoutRecommendationsAndReviews() {
+        getAndVerifyProduct(PRODUCT_ID_PARTIAL + "?include=product", HttpStatus.OK)
+                .jsonPath("$.productId").isEqualTo(PRODUCT_ID_PARTIAL)
+                .jsonPath("$.name").isEqualTo("name")
+                .jsonPath("$.recommendations").doesNotExist()
+                .jsonPath("$.reviews").doesNotExist();
+
+        verify(compositeIntegration, never()).getRecommendations(eq(PRODUCT_ID_PARTIAL), isNull(), anyInt());
+        verify(compositeIntegration, never()).getReviews(eq(PRODUCT_ID_PARTIAL), isNull(), anyInt());
+    }
+
+    @Test
+    public void getProductWithReviewsOnly() {
+        getAndVerifyProduct(PRODUCT_ID_PARTIAL + "?include=product,reviews", HttpStatus.OK)
+                .jsonPath("$.recommendations").doesNotExist()
+                .jsonPath("$.reviews.length()").isEqualTo(1);
+
+        verify(compositeIntegration, never()).getRecommendations(eq(PRODUCT_ID_PARTIAL), isNull(), anyInt());
+    }
+
+    @Test
+    public void getProductInvalidInclude() {
+        getAndVerifyProduct(PRODUCT_ID_PARTIAL + "?include=price", UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").value(message -> ((String) message).startsWith("Invalid include value: price"));
+    }
+
+    @Test
+    public void getProductStream() {
+        List<ProductAggregatePart> parts = client.get()
+                .uri("/product-composite/" + PRODUCT_ID_STREAM + "/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ProductAggregatePart.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(4, parts.size());
+        assertEquals(ProductAggregatePart.Type.PRODUCT, parts.get(0).getType());
+        assertEquals(PRODUCT_ID_STREAM, parts.get(0).getProduct().getProductId());
+        assertEquals(2, parts.stream().filter(p -> p.getType() == ProductAggregatePart.Type.RECOMMENDATION).count());
+        assertEquals(1, parts.stream().filter(p -> p.getType() == ProductAggregatePart.Type.REVIEW).count());
+    }
+
+    @Test
+    public void getProductFirstPageWithCursor() {
+        getAndVerifyProduct(PRODUCT_ID_PAGED, HttpStatus.OK)
+                .jsonPath("$.recommendations.length()").isEqualTo(2)
+                .jsonPath("$.recommendations[1].recommendationId").isEqualTo(2)
+                .jsonPath("$.recommendationsCursor").isEqualTo(2)
+                .jsonPath("$.reviews.length()").isEqualTo(1)
+                .jsonPath("$.reviewsCursor").doesNotExist();
+    }
+
+    @Test
+    public void getRecommendationsNextPage() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_PAGED + "/recommendations?after=2&limit=1000")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].recommendationId").isEqualTo(3);
+
+        verify(compositeIntegration).getRecommendations(PRODUCT_ID_PAGED, 2, 100);
+    }
+
+    @Test
+    public void getReviewsInvalidLimit() {
+        client.get()
+                .uri("/product-composite/" + PRODUCT_ID_PAGED + "/reviews?limit=0")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid limit: 0");
+    }
+
+    @Test
+    public void getProductsBatch() {
+        client.post()
+                .uri("/product-composite/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(PRODUCT_ID_BATCH_2, PRODUCT_ID_BATCH_1, PRODUCT_ID_BATCH_2))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].productId").isEqualTo(PRODUCT_ID_BATCH_2)
+                .jsonPath("$[0].recommendations.length()").isEqualTo(0)
+                .jsonPath("$[0].reviews.length()").isEqualTo(1)
+                .jsonPath("$[1].productId").isEqualTo(PRODUCT_ID_BATCH_1)
+                .jsonPath("$[1].recommendations.length()").isEqualTo(2)
+                .jsonPath("$[1].reviews.length()").isEqualTo(0);
+    }
+
+    @Test
+    public void batchWithStalePartsIsNotCached() {
+        for (int i = 0; i < 2; i++) {
+            client.post()
+                    .uri("/product-composite/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(List.of(PRODUCT_ID_BATCH_STALE))
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$[0].stale[0]").isEqualTo("recommendations");
+        }
+
+        verify(compositeIntegration, times(2)).getProducts(List.of(PRODUCT_ID_BATCH_STALE));
+    }
+
     @Test
     public void getProductNotFound() {
         getAndVerifyProduct(PRODUCT_ID_NOT_FOUND, HttpStatus.NOT_FOUND)
@@ -76,8 +301,12 @@ class ProductCompositeServiceImplTest {
     }
 
     private WebTestClient.BodyContentSpec getAndVerifyProduct(int productId, HttpStatus expectedStatus) {
+        return getAndVerifyProduct(String.valueOf(productId), expectedStatus);
+    }
+
+    private WebTestClient.BodyContentSpec getAndVerifyProduct(String productIdPath, HttpStatus expectedStatus) {
         return client.get()
-                .uri("/product-composite/" + productId)
+                .uri("/product-composite/" + productIdPath)
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
                 .expectStatus().isEqualTo(expectedStatus)
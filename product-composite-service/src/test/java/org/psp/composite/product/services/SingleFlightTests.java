@@ -0,0 +1,92 @@
+package org.psp.composite.product.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SingleFlightTests {
+    private MeterRegistry meterRegistry;
+    private SingleFlight<Integer> singleFlight;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void concurrentCallsForSameKeyAreCoalesced() {
+        Mono<String> first = singleFlight.mono(1, this::slowCall);
+        Mono<String> second = singleFlight.mono(1, this::slowCall);
+
+        List<String> results = Flux.merge(first, second).collectList().block();
+
+        assertEquals(List.of("result-1", "result-1"), results);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, coalescedCount());
+    }
+
+    @Test
+    void callsForDifferentKeysAreNotCoalesced() {
+        Flux.merge(singleFlight.mono(1, this::slowCall), singleFlight.mono(2, this::slowCall)).blockLast();
+
+        assertEquals(2, calls.get());
+        assertEquals(0.0, coalescedCount());
+    }
+
+    @Test
+    void completedCallIsNotReused() {
+        singleFlight.mono(1, this::slowCall).block();
+        singleFlight.mono(1, this::slowCall).block();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void fluxElementsAreSharedWithLateJoiners() {
+        Flux<Integer> source = Flux.defer(() -> {
+            calls.incrementAndGet();
+            return Flux.just(1, 2, 3).delayElements(Duration.ofMillis(20));
+        });
+        Flux<Integer> first = singleFlight.flux(1, () -> source);
+        Flux<Integer> second = singleFlight.flux(1, () -> source)
+                .delaySubscription(Duration.ofMillis(30));
+
+        List<List<Integer>> results = Flux.merge(first.collectList(), second.collectList()).collectList().block();
+
+        assertEquals(List.of(List.of(1, 2, 3), List.of(1, 2, 3)), results);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void callIsCancelledWhenAllSubscribersCancel() {
+        AtomicInteger cancelled = new AtomicInteger();
+        Mono<String> first = singleFlight.mono(1, () -> slowCall().doOnCancel(cancelled::incrementAndGet));
+        Mono<String> second = singleFlight.mono(1, this::slowCall);
+
+        Flux.merge(first, second).take(Duration.ofMillis(10)).blockLast();
+
+        assertEquals(1, cancelled.get());
+        assertEquals("result-2", singleFlight.mono(1, this::slowCall).block());
+    }
+
+    private Mono<String> slowCall() {
+        return Mono.fromCallable(() -> "result-" + calls.incrementAndGet())
+                .delayElement(Duration.ofMillis(50));
+    }
+
+    private double coalescedCount() {
+        return meterRegistry.get("composite.singleflight.calls").tag("result", "coalesced").counter().count();
+    }
+}
@@ -3,10 +3,16 @@ package org.psp.core.product.persistence;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface ProductRepository extends ReactiveCrudRepository<ProductEntity, String> {
     Mono<ProductEntity> findByProductId(int productId);
+
+    Flux<ProductEntity> findByProductIdIn(Collection<Integer> productIds);
+
+    Mono<Long> deleteByProductIdIn(Collection<Integer> productIds);
 }
@@ -2,23 +2,33 @@ package org.psp.core.product.services;
 
 import org.psp.api.core.event.Event;
 import org.psp.api.core.product.Product;
-import org.psp.api.core.product.ProductService;
 import org.psp.api.exceptions.EventProcessingException;
+import org.psp.util.messaging.EventBatchProcessor;
+import org.psp.util.messaging.ReactiveEventProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Configuration
 public class MessageProcessorConfig {
     private static final Logger LOG = LoggerFactory.getLogger(MessageProcessorConfig.class);
 
-    private final ProductService productService;
+    private final ProductServiceImpl productService;
+    private final StreamBridge streamBridge;
 
-    public MessageProcessorConfig(ProductService productService) {
+    public MessageProcessorConfig(ProductServiceImpl productService, StreamBridge streamBridge) {
         this.productService = productService;
+        this.streamBridge = streamBridge;
     }
 
     @Bean
@@ -47,4 +57,31 @@ public class MessageProcessorConfig {
             LOG.info("Message processing done.");
         };
     }
+
+    /**
+     * Batch variant of {@link #messageProcessor()}, selected by the batch profile.
+     */
+    @Bean
+    public Consumer<List<Event<Integer, Product>>> messageBatchProcessor() {
+        return new EventBatchProcessor<>("product", productService::createProducts, productService::deleteProducts,
+                messageProcessor(), this::sendToDeadLetters);
+    }
+
+    /**
+     * Non-blocking variant of {@link #messageProcessor()}, selected by the reactive profile. Events of the
+     * same product are processed in order, events of different products in parallel.
+     */
+    @Bean
+    public Function<Flux<Event<Integer, Product>>, Mono<Void>> messageStreamProcessor(
+            @Value("${app.messaging.concurrency:16}") int concurrency) {
+        return new ReactiveEventProcessor<>("product", concurrency, event -> switch (event.getEventType()) {
+            case CREATE -> productService.createProduct(event.getData());
+            case DELETE -> productService.deleteProduct(event.getKey());
+        }, this::sendToDeadLetters);
+    }
+
+    private void sendToDeadLetters(Event<Integer, Product> event, Throwable ex) {
+        streamBridge.send("deadLetters-out-0",
+                MessageBuilder.withPayload(event).setHeader("x-exception-message", ex.toString()).build());
+    }
 }
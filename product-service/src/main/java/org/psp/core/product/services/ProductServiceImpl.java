@@ -11,8 +11,10 @@ import org.psp.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.logging.Level;
 
 import static java.util.logging.Level.*;
@@ -59,6 +61,19 @@ public class ProductServiceImpl implements ProductService {
                 .map(e -> setServiceAddress(e));
     }
 
+    @Override
+    public Flux<Product> getProducts(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        LOG.info("Will get product info for {} ids", productIds.size());
+
+        return repository.findByProductIdIn(productIds)
+                .log(LOG.getName(), FINE)
+                .map(e -> mapper.entityToApi(e))
+                .map(e -> setServiceAddress(e));
+    }
+
     @Override
     public Mono<Void> deleteProduct(int productId) {
         if (productId < 1) {
@@ -71,6 +86,25 @@ public class ProductServiceImpl implements ProductService {
                 .flatMap(e -> e);
     }
 
+    /**
+     * Stores the products of a message batch, all new entities are written with one insertMany.
+     */
+    public Mono<Void> createProducts(List<Product> bodies) {
+        LOG.debug("createProducts: creates {} products", bodies.size());
+        return repository.saveAll(bodies.stream().map(body -> mapper.apiToEntity(body)).toList())
+                .log(LOG.getName(), FINE)
+                .then();
+    }
+
+    public Mono<Void> deleteProducts(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid product id: " + productId);
+        });
+        return repository.deleteByProductIdIn(productIds)
+                .doOnNext(count -> LOG.debug("deleteProducts: deleted {} products", count))
+                .then();
+    }
+
     private Product setServiceAddress(Product product) {
         product.setServiceAddress(serviceUtil.getServiceAddress());
         return product;
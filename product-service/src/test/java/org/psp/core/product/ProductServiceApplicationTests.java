@@ -48,6 +48,16 @@ public class ProductServiceApplicationTests extends MongoDbTestBase {
                 .jsonPath("$.productId").isEqualTo(productId);
     }
 
+    @Test
+    public void getProductsByIds() {
+        sendCreateProductEvent(1);
+        sendCreateProductEvent(2);
+        sendCreateProductEvent(3);
+
+        getAndVerifyProduct("?productId=1,3,4", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
 //    @Test
     public void duplicateError() {
         int productId = 1;
@@ -1,8 +1,25 @@
 package org.psp.core.recommendation.persistence;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 public interface RecommendationRepository extends ReactiveCrudRepository<RecommendationEntity, String> {
     Flux<RecommendationEntity> findByProductId(int productId);
+
+    /**
+     * Keyset page over the prod-rec-id index, the cost does not grow with the page number.
+     */
+    Flux<RecommendationEntity> findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(
+            int productId, int afterRecommendationId, Limit limit);
+
+    /**
+     * Removes all recommendations of the product with one deleteMany and returns how many were removed.
+     */
+    Mono<Long> deleteByProductId(int productId);
+
+    Mono<Long> deleteByProductIdIn(Collection<Integer> productIds);
 }
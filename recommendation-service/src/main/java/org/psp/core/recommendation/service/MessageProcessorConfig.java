@@ -3,22 +3,31 @@ package org.psp.core.recommendation.service;
 import lombok.RequiredArgsConstructor;
 import org.psp.api.core.event.Event;
 import org.psp.api.core.recommendation.Recommendation;
-import org.psp.api.core.recommendation.RecommendationService;
 import org.psp.api.exceptions.EventProcessingException;
+import org.psp.util.messaging.EventBatchProcessor;
+import org.psp.util.messaging.ReactiveEventProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Configuration
 @RequiredArgsConstructor
 public class MessageProcessorConfig {
     private static final Logger LOG = LoggerFactory.getLogger(MessageProcessorConfig.class);
 
-    private final RecommendationService recommendationService;
+    private final RecommendationServiceImpl recommendationService;
+    private final StreamBridge streamBridge;
 
     @Bean
     public Consumer<Event<Integer, Recommendation>> messageProcessor() {
@@ -46,4 +55,31 @@ public class MessageProcessorConfig {
             LOG.info("Message processing done.");
         };
     }
+
+    /**
+     * Batch variant of {@link #messageProcessor()}, selected by the batch profile.
+     */
+    @Bean
+    public Consumer<List<Event<Integer, Recommendation>>> messageBatchProcessor() {
+        return new EventBatchProcessor<>("recommendation", recommendationService::createRecommendations,
+                recommendationService::deleteRecommendations, messageProcessor(), this::sendToDeadLetters);
+    }
+
+    /**
+     * Non-blocking variant of {@link #messageProcessor()}, selected by the reactive profile. Events of the
+     * same product are processed in order, events of different products in parallel.
+     */
+    @Bean
+    public Function<Flux<Event<Integer, Recommendation>>, Mono<Void>> messageStreamProcessor(
+            @Value("${app.messaging.concurrency:16}") int concurrency) {
+        return new ReactiveEventProcessor<>("recommendation", concurrency, event -> switch (event.getEventType()) {
+            case CREATE -> recommendationService.createRecommendation(event.getData());
+            case DELETE -> recommendationService.deleteRecommendations(event.getKey());
+        }, this::sendToDeadLetters);
+    }
+
+    private void sendToDeadLetters(Event<Integer, Recommendation> event, Throwable ex) {
+        streamBridge.send("deadLetters-out-0",
+                MessageBuilder.withPayload(event).setHeader("x-exception-message", ex.toString()).build());
+    }
 }
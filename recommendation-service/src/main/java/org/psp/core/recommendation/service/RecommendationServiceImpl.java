@@ -1,7 +1,6 @@
 package org.psp.core.recommendation.service;
 
 import com.mongodb.DuplicateKeyException;
-import lombok.RequiredArgsConstructor;
 import org.psp.api.core.recommendation.Recommendation;
 import org.psp.api.core.recommendation.RecommendationService;
 import org.psp.api.exceptions.InvalidInputException;
@@ -9,6 +8,8 @@ import org.psp.core.recommendation.persistence.RecommendationEntity;
 import org.psp.core.recommendation.persistence.RecommendationRepository;
 import org.psp.util.http.ServiceUtil;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.bind.annotation.RestController;
 import org.slf4j.Logger;
 import reactor.core.publisher.Flux;
@@ -19,13 +20,21 @@ import java.util.List;
 import java.util.logging.Level;
 
 @RestController
-@RequiredArgsConstructor
 public class RecommendationServiceImpl implements RecommendationService {
     private static final Logger LOG = LoggerFactory.getLogger(RecommendationServiceImpl.class);
 
     private final RecommendationRepository repository;
     private final RecommendationMapper mapper;
     private final ServiceUtil serviceUtil;
+    private final int maxPageSize;
+
+    public RecommendationServiceImpl(RecommendationRepository repository, RecommendationMapper mapper,
+                                     ServiceUtil serviceUtil, @Value("${app.page.max-size:100}") int maxPageSize) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.maxPageSize = maxPageSize;
+    }
 
     @Override
     public Mono<Recommendation> createRecommendation(Recommendation body) {
@@ -42,25 +51,81 @@ public class RecommendationServiceImpl implements RecommendationService {
     }
 
     @Override
-    public Flux<Recommendation> getRecommendations(int productId) {
+    public Flux<Recommendation> getRecommendations(int productId, Integer afterRecommendationId, Integer limit) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
-        LOG.info("Get recommendations for product with ID: {}", productId);
-        return repository.findByProductId(productId)
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+        int after = afterRecommendationId == null ? Integer.MIN_VALUE : afterRecommendationId;
+        LOG.info("Get recommendations for product with ID: {}, after: {}, page size: {}", productId,
+                afterRecommendationId, pageSize);
+        return repository.findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId, after,
+                        Limit.of(pageSize))
+                .log(LOG.getName(), Level.FINE)
+                .map(e -> mapper.entityToApi(e))
+                .map(e -> setServiceAddress(e));
+    }
+
+    /**
+     * Reads the first page of every product with one keyset query per product over the prod-rec-id index,
+     * so that no product returns more than the page size however many recommendations it has.
+     */
+    @Override
+    public Flux<Recommendation> getRecommendations(List<Integer> productIds, Integer limit) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+        LOG.info("Get recommendations for {} products, page size: {}", productIds.size(), pageSize);
+        return Flux.fromIterable(productIds)
+                .sort()
+                .distinct()
+                .flatMapSequential(productId -> repository
+                        .findByProductIdAndRecommendationIdGreaterThanOrderByRecommendationIdAsc(productId,
+                                Integer.MIN_VALUE, Limit.of(pageSize)))
                 .log(LOG.getName(), Level.FINE)
                 .map(e -> mapper.entityToApi(e))
                 .map(e -> setServiceAddress(e));
     }
 
     @Override
-    public Mono<Void> deleteRecommendations(int productId) {
+    public Mono<Long> deleteRecommendations(int productId) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid product: " + productId);
         }
         LOG.debug("deleteRecommendations: tries to delete recommendations for the product with productId: {}",
                 productId);
-        return repository.deleteAll(repository.findByProductId(productId));
+        return repository.deleteByProductId(productId)
+                .doOnNext(count -> LOG.info("deleteRecommendations: deleted {} recommendations for productId: {}",
+                        count, productId));
+    }
+
+    /**
+     * Stores the recommendations of a message batch, all new entities are written with one insertMany.
+     */
+    public Mono<Void> createRecommendations(List<Recommendation> bodies) {
+        bodies.stream().filter(body -> body.getProductId() < 1).findFirst().ifPresent(body -> {
+            throw new InvalidInputException("Invalid productId: " + body.getProductId());
+        });
+        LOG.debug("createRecommendations: creates {} recommendations", bodies.size());
+        return repository.saveAll(bodies.stream().map(body -> mapper.apiToEntity(body)).toList())
+                .log(LOG.getName(), Level.FINE)
+                .then();
+    }
+
+    public Mono<Long> deleteRecommendations(List<Integer> productIds) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid product: " + productId);
+        });
+        return repository.deleteByProductIdIn(productIds)
+                .doOnNext(count -> LOG.info("deleteRecommendations: deleted {} recommendations for {} products",
+                        count, productIds.size()));
     }
 
     private Recommendation setServiceAddress(Recommendation recommendation) {
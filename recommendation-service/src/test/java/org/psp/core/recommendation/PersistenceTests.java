@@ -52,6 +52,16 @@ public class PersistenceTests extends MongoDbTestBase {
         assertFalse(repository.existsById(savedEntity.getId()).block());
     }
 
+    @Test
+    public void deleteByProductId() {
+        repository.save(new RecommendationEntity(1, 3, "a", 3, "C")).block();
+        repository.save(new RecommendationEntity(2, 1, "a", 3, "C")).block();
+
+        assertEquals(2, (long) repository.deleteByProductId(1).block());
+        assertEquals(0, (long) repository.findByProductId(1).count().block());
+        assertEquals(1, (long) repository.count().block());
+    }
+
     @Test
     public void getByProductId() {
         List<RecommendationEntity> entityList = repository.findByProductId(savedEntity.getProductId())
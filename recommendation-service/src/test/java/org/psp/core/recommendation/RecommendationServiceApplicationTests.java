@@ -48,6 +48,40 @@ public class RecommendationServiceApplicationTests extends MongoDbTestBase {
                 .jsonPath("$[2].recommendationId").isEqualTo(3);
     }
 
+    @Test
+    public void getRecommendationsByProductIds() {
+        sendCreateRecommendationEvent(1, 1);
+        sendCreateRecommendationEvent(1, 2);
+        sendCreateRecommendationEvent(2, 1);
+        sendCreateRecommendationEvent(3, 1);
+
+        getAndVerifyRecommendationsByProductId("?productId=1,2", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(3);
+
+        getAndVerifyRecommendationsByProductId("?productId=2,1&limit=1", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].productId").isEqualTo(1)
+                .jsonPath("$[0].recommendationId").isEqualTo(1)
+                .jsonPath("$[1].productId").isEqualTo(2);
+    }
+
+    @Test
+    public void getRecommendationsByPage() {
+        int productId = 1;
+        sendCreateRecommendationEvent(productId, 3);
+        sendCreateRecommendationEvent(productId, 1);
+        sendCreateRecommendationEvent(productId, 2);
+
+        getAndVerifyRecommendationsByProductId("/" + productId + "?limit=2", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].recommendationId").isEqualTo(1)
+                .jsonPath("$[1].recommendationId").isEqualTo(2);
+
+        getAndVerifyRecommendationsByProductId("/" + productId + "?after=2&limit=2", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].recommendationId").isEqualTo(3);
+    }
+
     @Test
     public void deleteRecommendations() {
         int productId = 1;
@@ -60,6 +94,20 @@ public class RecommendationServiceApplicationTests extends MongoDbTestBase {
         assertEquals(0, repository.findByProductId(productId).count().block());
     }
 
+    @Test
+    public void deleteRecommendationsReturnsTheCount() {
+        sendCreateRecommendationEvent(1, 1);
+        sendCreateRecommendationEvent(1, 2);
+
+        client.delete()
+                .uri("/recommendation/1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.OK)
+                .expectBody(Long.class).isEqualTo(2L);
+        assertEquals(0, repository.findByProductId(1).count().block());
+    }
+
     @Test
     public void getRecommendationsNotFound() {
         getAndVerifyRecommendationsByProductId(113, HttpStatus.OK)
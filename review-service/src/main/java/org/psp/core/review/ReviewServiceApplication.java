@@ -1,5 +1,7 @@
 package org.psp.core.review;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,9 +13,13 @@ import org.springframework.boot.autoconfigure.security.reactive.ReactiveSecurity
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Profile;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @SpringBootApplication(
         exclude = {ReactiveSecurityAutoConfiguration.class, ReactiveManagementWebSecurityAutoConfiguration.class}
 )
@@ -22,16 +28,31 @@ public class ReviewServiceApplication {
     private static final Logger LOG = LoggerFactory.getLogger(ReviewServiceApplication.class);
     private final Integer threadPoolSize;
     private final Integer taskQueueSize;
+    private final boolean virtualThreads;
 
     public ReviewServiceApplication(
             @Value("${app.threadPoolSize:10}") Integer threadPoolSize,
-            @Value("${app.taskQueueSize:100}") Integer taskQueueSize) {
+            @Value("${app.taskQueueSize:100}") Integer taskQueueSize,
+            @Value("${app.virtualThreads:false}") boolean virtualThreads) {
         this.threadPoolSize = threadPoolSize;
         this.taskQueueSize = taskQueueSize;
+        this.virtualThreads = virtualThreads;
     }
 
+    /**
+     * With app.virtualThreads every blocking repository call gets its own virtual thread and the Hikari
+     * pool is the only concurrency limit. The executor.idle timer of the jdbc-pool executor shows how long
+     * the calls wait to start, hikaricp.connections.acquire how long they wait for a connection.
+     */
     @Bean
-    public Scheduler jdbcScheduler() {
+    @Profile("!r2dbc")
+    public Scheduler jdbcScheduler(MeterRegistry meterRegistry) {
+        if (virtualThreads) {
+            LOG.info("Creates a virtual thread per task scheduler");
+            ExecutorService executor = ExecutorServiceMetrics.monitor(meterRegistry,
+                    Executors.newVirtualThreadPerTaskExecutor(), "jdbc-pool");
+            return Schedulers.fromExecutorService(executor, "jdbc-pool");
+        }
         LOG.info("Creates a scheduler with a thread pool size = {}", threadPoolSize);
         return Schedulers.newBoundedElastic(threadPoolSize, taskQueueSize, "jdbc-pool");
     }
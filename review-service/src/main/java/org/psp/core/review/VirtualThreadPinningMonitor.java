@@ -0,0 +1,49 @@
+package org.psp.core.review;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Records the jdk.VirtualThreadPinned JFR events of the virtual thread scheduler. A virtual thread that
+ * blocks inside a synchronized block, e.g. in the MySQL driver, keeps its carrier thread, and enough of
+ * them stall every virtual thread in the JVM.
+ */
+@Component
+@ConditionalOnProperty(name = "app.virtualThreads", havingValue = "true")
+public class VirtualThreadPinningMonitor implements DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${app.virtualThreadPinnedThreshold:20ms}") Duration threshold) {
+        LOG.info("Records virtual threads pinned for more than {}", threshold);
+        Timer pinnedTimer = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads kept their carrier thread while blocked")
+                .register(meterRegistry);
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, event -> {
+            pinnedTimer.record(event.getDuration());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Virtual thread pinned for {}: {}", event.getDuration(), event.getStackTrace());
+            }
+        });
+        recordingStream.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        recordingStream.close();
+    }
+}
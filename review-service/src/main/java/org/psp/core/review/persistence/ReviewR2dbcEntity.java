@@ -0,0 +1,35 @@
+package org.psp.core.review.persistence;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Maps the same reviews table as {@link ReviewEntity}, used by the r2dbc profile.
+ */
+@Table("reviews")
+@Data
+public class ReviewR2dbcEntity {
+    @Id
+    private Integer id;
+    @Version
+    private Integer version;
+
+    private int productId;
+    private int reviewId;
+    private String author;
+    private String subject;
+    private String content;
+
+    public ReviewR2dbcEntity() {
+    }
+
+    public ReviewR2dbcEntity(int productId, int reviewId, String author, String subject, String content) {
+        this.productId = productId;
+        this.reviewId = reviewId;
+        this.author = author;
+        this.subject = subject;
+        this.content = content;
+    }
+}
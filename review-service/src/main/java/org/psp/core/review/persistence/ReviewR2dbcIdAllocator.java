@@ -0,0 +1,88 @@
+package org.psp.core.review.persistence;
+
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Gives new reviews an id from the reviews_seq table the way Hibernate's pooled optimizer does for
+ * {@link ReviewEntity}, so both persistence variants can write to the same tables. A fetch that reads N
+ * moves the table to N + 50 and reserves N - 49 to N, the ids are then handed out from memory.
+ */
+@Component
+@Profile("r2dbc")
+public class ReviewR2dbcIdAllocator implements BeforeConvertCallback<ReviewR2dbcEntity> {
+    // Hibernate's default allocationSize for @GeneratedValue
+    static final int BLOCK_SIZE = 50;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(1, 0));
+
+    public ReviewR2dbcIdAllocator(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        // Own transaction so that the sequence row is not locked until a batch of inserts commits
+        this.transactionalOperator = TransactionalOperator.create(transactionManager,
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Override
+    public Publisher<ReviewR2dbcEntity> onBeforeConvert(ReviewR2dbcEntity entity, SqlIdentifier table) {
+        if (entity.getId() != null) {
+            return Mono.just(entity);
+        }
+        return nextId().map(id -> {
+            entity.setId(id);
+            return entity;
+        });
+    }
+
+    Mono<Integer> nextId() {
+        return Mono.defer(() -> {
+            Block current = block.get();
+            int id = current.next.getAndIncrement();
+            if (id <= current.last) {
+                return Mono.just(id);
+            }
+            // Concurrent callers may each fetch a block, the ids of the one that is not kept stay unused
+            return fetchBlock().map(fetched -> {
+                int first = fetched.next.getAndIncrement();
+                block.compareAndSet(current, fetched);
+                return first;
+            });
+        });
+    }
+
+    private Mono<Block> fetchBlock() {
+        return databaseClient.sql("SELECT next_val FROM reviews_seq FOR UPDATE")
+                .map(row -> row.get("next_val", Long.class))
+                .one()
+                .flatMap(hi -> databaseClient.sql("UPDATE reviews_seq SET next_val = :next WHERE next_val = :hi")
+                        .bind("next", hi + BLOCK_SIZE)
+                        .bind("hi", hi)
+                        .then()
+                        .thenReturn(new Block((int) Math.max(1, hi - BLOCK_SIZE + 1), hi.intValue())))
+                .as(transactionalOperator::transactional);
+    }
+
+    private static class Block {
+        private final AtomicInteger next;
+        private final int last;
+
+        Block(int first, int last) {
+            this.next = new AtomicInteger(first);
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.psp.core.review.persistence;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReviewR2dbcRepository extends R2dbcRepository<ReviewR2dbcEntity, Integer> {
+    Flux<ReviewR2dbcEntity> findByProductId(int productId);
+
+    /**
+     * Keyset page over reviews_unique_idx, the pageable only carries the page size.
+     */
+    Flux<ReviewR2dbcEntity> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int afterReviewId,
+                                                                                    Pageable pageable);
+
+    /**
+     * The first page of reviews of each product in one statement, see ReviewRepository.findFirstPages.
+     */
+    @Query("SELECT id, version, product_id, review_id, author, subject, content FROM ("
+            + "SELECT r.*, ROW_NUMBER() OVER (PARTITION BY r.product_id ORDER BY r.review_id) AS row_num"
+            + " FROM reviews r WHERE r.product_id IN (:productIds)) ranked"
+            + " WHERE row_num <= :limit ORDER BY product_id, review_id")
+    Flux<ReviewR2dbcEntity> findFirstPages(Collection<Integer> productIds, int limit);
+
+    @Modifying
+    @Query("DELETE FROM reviews WHERE product_id = :productId")
+    Mono<Integer> deleteByProductId(int productId);
+
+    @Modifying
+    @Query("DELETE FROM reviews WHERE product_id IN (:productIds)")
+    Mono<Integer> deleteByProductIdIn(Collection<Integer> productIds);
+}
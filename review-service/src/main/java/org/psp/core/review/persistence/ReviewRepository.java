@@ -1,11 +1,48 @@
 package org.psp.core.review.persistence;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewRepository extends CrudRepository<ReviewEntity, Integer> {
     @Transactional(readOnly = true)
     List<ReviewEntity> findByProductId(int productId);
+
+    /**
+     * Keyset page over reviews_unique_idx, the cost does not grow with the page number.
+     */
+    @Transactional(readOnly = true)
+    List<ReviewEntity> findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(int productId, int afterReviewId,
+                                                                              Limit limit);
+
+    /**
+     * The first page of reviews of each product in one statement, numbered per product over
+     * reviews_unique_idx so that no product returns more than the limit.
+     */
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT id, version, product_id, review_id, author, subject, content FROM ("
+            + "SELECT r.*, ROW_NUMBER() OVER (PARTITION BY r.product_id ORDER BY r.review_id) AS row_num"
+            + " FROM reviews r WHERE r.product_id IN (:productIds)) ranked"
+            + " WHERE row_num <= :limit ORDER BY product_id, review_id", nativeQuery = true)
+    List<ReviewEntity> findFirstPages(@Param("productIds") Collection<Integer> productIds, @Param("limit") int limit);
+
+    /**
+     * Removes all reviews of the product with one DELETE statement, without loading them into the
+     * persistence context, and returns how many were removed.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ReviewEntity r where r.productId = :productId")
+    int deleteByProductId(@Param("productId") int productId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ReviewEntity r where r.productId in :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Integer> productIds);
 }
@@ -5,18 +5,29 @@ import org.psp.api.core.event.Event;
 import org.psp.api.core.review.Review;
 import org.psp.api.core.review.ReviewService;
 import org.psp.api.exceptions.EventProcessingException;
+import org.psp.util.messaging.EventBatchProcessor;
+import org.psp.util.messaging.ReactiveEventProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.MessageBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Configuration
 @AllArgsConstructor
 public class MessageProcessorConfig {
     private static final Logger LOG = LoggerFactory.getLogger(MessageProcessorConfig.class);
     private final ReviewService reviewService;
+    private final ReviewBatchService reviewBatchService;
+    private final StreamBridge streamBridge;
 
     @Bean
     public Consumer<Event<Integer, Review>> messageProcessor() {
@@ -42,4 +53,31 @@ public class MessageProcessorConfig {
             LOG.info("Message processing done!");
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Batch variant of {@link #messageProcessor()}, selected by the batch profile.
+     */
+    @Bean
+    public Consumer<List<Event<Integer, Review>>> messageBatchProcessor() {
+        return new EventBatchProcessor<>("review", reviewBatchService::createReviews,
+                reviewBatchService::deleteReviews, messageProcessor(), this::sendToDeadLetters);
+    }
+
+    /**
+     * Non-blocking variant of {@link #messageProcessor()}, selected by the reactive profile. Events of the
+     * same product are processed in order, events of different products in parallel.
+     */
+    @Bean
+    public Function<Flux<Event<Integer, Review>>, Mono<Void>> messageStreamProcessor(
+            @Value("${app.messaging.concurrency:16}") int concurrency) {
+        return new ReactiveEventProcessor<>("review", concurrency, event -> switch (event.getEventType()) {
+            case CREATE -> reviewService.createReview(event.getData());
+            case DELETE -> reviewService.deleteReview(event.getKey());
+        }, this::sendToDeadLetters);
+    }
+
+    private void sendToDeadLetters(Event<Integer, Review> event, Throwable ex) {
+        streamBridge.send("deadLetters-out-0",
+                MessageBuilder.withPayload(event).setHeader("x-exception-message", ex.toString()).build());
+    }
+}
@@ -0,0 +1,18 @@
+package org.psp.core.review.service;
+
+import org.psp.api.core.review.Review;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Bulk writes used by the batch message processor, implemented by both persistence variants.
+ */
+public interface ReviewBatchService {
+    Mono<Void> createReviews(List<Review> bodies);
+
+    /**
+     * @return the number of deleted reviews
+     */
+    Mono<Long> deleteReviews(List<Integer> productIds);
+}
@@ -5,6 +5,7 @@ import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
 import org.psp.api.core.review.Review;
 import org.psp.core.review.persistence.ReviewEntity;
+import org.psp.core.review.persistence.ReviewR2dbcEntity;
 
 import java.util.List;
 
@@ -24,4 +25,15 @@ public interface ReviewMapper {
     List<Review> entityListToApiList(List<ReviewEntity> entity);
 
     List<ReviewEntity> apiListToEntity(List<Review> api);
+
+    @Mappings(
+            @Mapping(target = "serviceAddress", ignore = true)
+    )
+    Review r2dbcEntityToApi(ReviewR2dbcEntity entity);
+
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(target = "version", ignore = true)
+    })
+    ReviewR2dbcEntity apiToR2dbcEntity(Review api);
 }
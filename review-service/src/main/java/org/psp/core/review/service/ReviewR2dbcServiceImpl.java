@@ -0,0 +1,125 @@
+package org.psp.core.review.service;
+
+import org.psp.api.core.review.Review;
+import org.psp.api.core.review.ReviewService;
+import org.psp.api.exceptions.InvalidInputException;
+import org.psp.core.review.persistence.ReviewR2dbcRepository;
+import org.psp.util.http.ServiceUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Non-blocking variant of {@link ReviewServiceImpl}, active with the r2dbc profile. The queries run on
+ * the R2DBC driver's event loop, so no jdbcScheduler thread is held while waiting for MySQL.
+ */
+@RestController
+@Profile("r2dbc")
+public class ReviewR2dbcServiceImpl implements ReviewService, ReviewBatchService {
+    private static final Logger LOG = LoggerFactory.getLogger(ReviewR2dbcServiceImpl.class);
+
+    private final ReviewR2dbcRepository repository;
+    private final ReviewMapper mapper;
+    private final ServiceUtil serviceUtil;
+    private final int maxPageSize;
+
+    public ReviewR2dbcServiceImpl(ReviewR2dbcRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil,
+                                  @Value("${app.page.max-size:100}") int maxPageSize) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public Mono<Review> createReview(Review body) {
+        LOG.info("createReview: created a new review entity: {}/{}", body.getProductId(), body.getReviewId());
+        return repository.save(mapper.apiToR2dbcEntity(body))
+                .log(LOG.getName(), Level.FINE)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        ex -> new InvalidInputException("Duplicate key, product ID: " + body.getProductId() +
+                                ", review id: " + body.getReviewId()))
+                .map(e -> mapper.r2dbcEntityToApi(e));
+    }
+
+    @Override
+    public Flux<Review> getReviews(int productId, Integer afterReviewId, Integer limit) {
+        if (productId < 1) {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+        int after = afterReviewId == null ? Integer.MIN_VALUE : afterReviewId;
+
+        LOG.info("Will get reviews for product with id={}, after={}, page size={}", productId, afterReviewId,
+                pageSize);
+
+        return repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(productId, after,
+                        PageRequest.ofSize(pageSize))
+                .log(LOG.getName(), Level.FINE)
+                .map(e -> setServiceAddress(mapper.r2dbcEntityToApi(e)));
+    }
+
+    @Override
+    public Flux<Review> getReviews(List<Integer> productIds, Integer limit) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+
+        LOG.info("Will get reviews for {} products, page size={}", productIds.size(), pageSize);
+
+        return repository.findFirstPages(productIds, pageSize)
+                .log(LOG.getName(), Level.FINE)
+                .map(e -> setServiceAddress(mapper.r2dbcEntityToApi(e)));
+    }
+
+    @Override
+    public Mono<Long> deleteReview(int productId) {
+        LOG.info("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
+        return repository.deleteByProductId(productId)
+                .map(Integer::longValue)
+                .doOnNext(count -> LOG.info("deleteReviews: deleted {} reviews for product id: {}", count, productId));
+    }
+
+    /**
+     * R2DBC has no batch insert in the repository, the inserts share one transaction so that the batch is
+     * stored either completely or not at all.
+     */
+    @Override
+    @Transactional
+    public Mono<Void> createReviews(List<Review> bodies) {
+        LOG.debug("createReviews: creates {} reviews", bodies.size());
+        return repository.saveAll(bodies.stream().map(body -> mapper.apiToR2dbcEntity(body)).toList())
+                .log(LOG.getName(), Level.FINE)
+                .then();
+    }
+
+    @Override
+    public Mono<Long> deleteReviews(List<Integer> productIds) {
+        return repository.deleteByProductIdIn(productIds)
+                .map(Integer::longValue)
+                .doOnNext(count -> LOG.info("deleteReviews: deleted {} reviews for {} products", count,
+                        productIds.size()));
+    }
+
+    private Review setServiceAddress(Review review) {
+        review.setServiceAddress(serviceUtil.getServiceAddress());
+        return review;
+    }
+}
@@ -1,6 +1,5 @@
 package org.psp.core.review.service;
 
-import lombok.AllArgsConstructor;
 import org.psp.api.core.review.Review;
 import org.psp.api.core.review.ReviewService;
 import org.psp.api.exceptions.InvalidInputException;
@@ -9,7 +8,10 @@ import org.psp.core.review.persistence.ReviewRepository;
 import org.psp.util.http.ServiceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -20,14 +22,24 @@ import java.util.List;
 import java.util.logging.Level;
 
 @RestController
-@AllArgsConstructor
-public class ReviewServiceImpl implements ReviewService {
+@Profile("!r2dbc")
+public class ReviewServiceImpl implements ReviewService, ReviewBatchService {
     private static final Logger LOG = LoggerFactory.getLogger(ReviewServiceImpl.class);
 
     private final ReviewRepository repository;
     private final ReviewMapper mapper;
     private final ServiceUtil serviceUtil;
     private final Scheduler jdbcScheduler;
+    private final int maxPageSize;
+
+    public ReviewServiceImpl(ReviewRepository repository, ReviewMapper mapper, ServiceUtil serviceUtil,
+                             Scheduler jdbcScheduler, @Value("${app.page.max-size:100}") int maxPageSize) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.serviceUtil = serviceUtil;
+        this.jdbcScheduler = jdbcScheduler;
+        this.maxPageSize = maxPageSize;
+    }
 
     @Override
     public Mono<Review> createReview(Review body) {
@@ -37,23 +49,67 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
-    public Flux<Review> getReviews(int productId) {
+    public Flux<Review> getReviews(int productId, Integer afterReviewId, Integer limit) {
         if (productId < 1) {
             throw new InvalidInputException("Invalid productId: " + productId);
         }
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
+        int after = afterReviewId == null ? Integer.MIN_VALUE : afterReviewId;
+
+        LOG.info("Will get reviews for product with id={}, after={}, page size={}", productId, afterReviewId,
+                pageSize);
+
+        return Mono.fromCallable(() -> internalGetReviews(productId, after, pageSize))
+                .flatMapMany(Flux::fromIterable)
+                .log(LOG.getName(), Level.FINE)
+                .subscribeOn(jdbcScheduler);
+    }
+
+    @Override
+    public Flux<Review> getReviews(List<Integer> productIds, Integer limit) {
+        productIds.stream().filter(productId -> productId < 1).findFirst().ifPresent(productId -> {
+            throw new InvalidInputException("Invalid productId: " + productId);
+        });
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("Invalid limit: " + limit);
+        }
+        int pageSize = limit == null ? maxPageSize : Math.min(limit, maxPageSize);
 
-        LOG.info("Will get reviews for product with id={}", productId);
+        LOG.info("Will get reviews for {} products, page size={}", productIds.size(), pageSize);
 
-        return Mono.fromCallable(() -> internalGetReviews(productId))
+        return Mono.fromCallable(() -> internalGetReviews(productIds, pageSize))
                 .flatMapMany(Flux::fromIterable)
                 .log(LOG.getName(), Level.FINE)
                 .subscribeOn(jdbcScheduler);
     }
 
     @Override
-    public Mono<Void> deleteReview(int productId) {
+    public Mono<Long> deleteReview(int productId) {
         LOG.info("deleteReviews: tries to delete reviews for the product with productId: {}", productId);
-        return Mono.fromRunnable(() -> internalDeleteReviews(productId));
+        return Mono.fromCallable(() -> internalDeleteReviews(productId))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    @Override
+    public Mono<Void> createReviews(List<Review> bodies) {
+        LOG.debug("createReviews: creates {} reviews", bodies.size());
+        List<ReviewEntity> entities = mapper.apiListToEntity(bodies);
+        return Mono.fromRunnable(() -> repository.saveAll(entities))
+                .subscribeOn(jdbcScheduler)
+                .then();
+    }
+
+    @Override
+    public Mono<Long> deleteReviews(List<Integer> productIds) {
+        return Mono.fromCallable(() -> {
+                    long count = repository.deleteByProductIdIn(productIds);
+                    LOG.info("deleteReviews: deleted {} reviews for {} products", count, productIds.size());
+                    return count;
+                })
+                .subscribeOn(jdbcScheduler);
     }
 
     private Review internalCreateReview(Review body) {
@@ -68,16 +124,27 @@ public class ReviewServiceImpl implements ReviewService {
         }
     }
 
-    private List<Review> internalGetReviews(int produtId) {
-        List<ReviewEntity> entityList = repository.findByProductId(produtId);
+    private List<Review> internalGetReviews(int produtId, int afterReviewId, int pageSize) {
+        List<ReviewEntity> entityList = repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(produtId,
+                afterReviewId, Limit.of(pageSize));
+        List<Review> list = mapper.entityListToApiList(entityList);
+        list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
+        LOG.debug("Response size: {}", list.size());
+        return list;
+    }
+
+    private List<Review> internalGetReviews(List<Integer> productIds, int pageSize) {
+        List<ReviewEntity> entityList = repository.findFirstPages(productIds, pageSize);
         List<Review> list = mapper.entityListToApiList(entityList);
         list.forEach(e -> e.setServiceAddress(serviceUtil.getServiceAddress()));
         LOG.debug("Response size: {}", list.size());
         return list;
     }
 
-    private void internalDeleteReviews(int productId) {
+    private long internalDeleteReviews(int productId) {
         LOG.debug("deleteReviews: tries to delete reviews for products with product id: {}", productId);
-        repository.deleteAll(repository.findByProductId(productId));
+        long count = repository.deleteByProductId(productId);
+        LOG.info("deleteReviews: deleted {} reviews for product id: {}", count, productId);
+        return count;
     }
 }
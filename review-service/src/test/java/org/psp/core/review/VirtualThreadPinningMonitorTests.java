@@ -0,0 +1,46 @@
+package org.psp.core.review;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadPinningMonitorTests {
+    private final Object lock = new Object();
+
+    @Test
+    public void pinnedVirtualThreadIsRecorded() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10));
+        try {
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    sleep(50);
+                }
+            }).join();
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (pinnedCount(meterRegistry) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(pinnedCount(meterRegistry) > 0);
+        } finally {
+            monitor.destroy();
+        }
+    }
+
+    private long pinnedCount(MeterRegistry meterRegistry) {
+        return meterRegistry.get("jvm.threads.virtual.pinned").timer().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,9 +4,11 @@ import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 import org.psp.api.core.review.Review;
 import org.psp.core.review.persistence.ReviewEntity;
+import org.psp.core.review.persistence.ReviewR2dbcEntity;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class MapperTests {
     private ReviewMapper mapper = Mappers.getMapper(ReviewMapper.class);
@@ -31,4 +33,25 @@ public class MapperTests {
         assertEquals(api.getSubject(), api2.getSubject());
         assertEquals(api.getContent(), api2.getContent());
     }
+
+    @Test
+    public void r2dbcMapperTests() {
+        Review api = new Review(1, 2, "a", "s", "C", "adr");
+        ReviewR2dbcEntity entity = mapper.apiToR2dbcEntity(api);
+
+        assertNull(entity.getId());
+        assertEquals(api.getProductId(), entity.getProductId());
+        assertEquals(api.getReviewId(), entity.getReviewId());
+        assertEquals(api.getAuthor(), entity.getAuthor());
+        assertEquals(api.getSubject(), entity.getSubject());
+        assertEquals(api.getContent(), entity.getContent());
+
+        Review api2 = mapper.r2dbcEntityToApi(entity);
+        assertEquals(api.getProductId(), api2.getProductId());
+        assertEquals(api.getReviewId(), api2.getReviewId());
+        assertEquals(api.getAuthor(), api2.getAuthor());
+        assertEquals(api.getSubject(), api2.getSubject());
+        assertEquals(api.getContent(), api2.getContent());
+        assertNull(api2.getServiceAddress());
+    }
 }
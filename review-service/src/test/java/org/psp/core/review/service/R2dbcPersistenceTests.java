@@ -0,0 +1,92 @@
+package org.psp.core.review.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.psp.core.review.persistence.ReviewR2dbcEntity;
+import org.psp.core.review.persistence.ReviewR2dbcIdAllocator;
+import org.psp.core.review.persistence.ReviewR2dbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+@DataR2dbcTest
+@ActiveProfiles("r2dbc")
+@Import(ReviewR2dbcIdAllocator.class)
+public class R2dbcPersistenceTests extends MySqlTestBase {
+    @Autowired
+    private ReviewR2dbcRepository repository;
+    @Autowired
+    private DatabaseClient databaseClient;
+    private ReviewR2dbcEntity savedEntity;
+
+    @BeforeEach
+    public void setupDb() {
+        StepVerifier.create(repository.deleteAll()).verifyComplete();
+        ReviewR2dbcEntity entity = new ReviewR2dbcEntity(1, 2, "a", "s", "c");
+        StepVerifier.create(repository.save(entity))
+                .expectNextMatches(saved -> {
+                    savedEntity = saved;
+                    return saved.getId() != null && saved.getVersion() == 0;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void create() {
+        StepVerifier.create(repository.save(new ReviewR2dbcEntity(1, 3, "a", "s", "c")))
+                .expectNextMatches(saved -> saved.getReviewId() == 3)
+                .verifyComplete();
+        StepVerifier.create(repository.count()).expectNext(2L).verifyComplete();
+    }
+
+    @Test
+    public void idsAreReservedInTheSequenceTable() {
+        StepVerifier.create(repository.save(new ReviewR2dbcEntity(1, 3, "a", "s", "c")))
+                .expectNextMatches(saved -> saved.getId() == savedEntity.getId() + 1)
+                .verifyComplete();
+        StepVerifier.create(databaseClient.sql("SELECT next_val FROM reviews_seq")
+                        .map(row -> row.get("next_val", Long.class)).one())
+                .expectNextMatches(next -> next > savedEntity.getId() + 1)
+                .verifyComplete();
+    }
+
+    @Test
+    public void update() {
+        savedEntity.setAuthor("a2");
+        StepVerifier.create(repository.save(savedEntity)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(repository.findById(savedEntity.getId()))
+                .expectNextMatches(found -> found.getVersion() == 1 && "a2".equals(found.getAuthor()))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getPageByProductId() {
+        StepVerifier.create(repository.save(new ReviewR2dbcEntity(1, 1, "a", "s", "c"))
+                        .then(repository.save(new ReviewR2dbcEntity(1, 3, "a", "s", "c"))))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(repository.findByProductIdAndReviewIdGreaterThanOrderByReviewIdAsc(1, 1,
+                        PageRequest.ofSize(1)))
+                .expectNextMatches(found -> found.getReviewId() == 2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void deleteByProductId() {
+        StepVerifier.create(repository.deleteByProductId(savedEntity.getProductId())).expectNext(1).verifyComplete();
+        StepVerifier.create(repository.count()).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    public void duplicateError() {
+        StepVerifier.create(repository.save(new ReviewR2dbcEntity(1, 2, "a", "s", "c")))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+}
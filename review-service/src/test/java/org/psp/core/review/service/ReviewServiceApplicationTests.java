@@ -12,6 +12,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -32,6 +33,9 @@ public class ReviewServiceApplicationTests extends MySqlTestBase {
     @Autowired
     @Qualifier("messageProcessor")
     private Consumer<Event<Integer, Review>> messageProcessor;
+    @Autowired
+    @Qualifier("messageBatchProcessor")
+    private Consumer<List<Event<Integer, Review>>> messageBatchProcessor;
 
     @BeforeEach
     public void setupDb() {
@@ -55,6 +59,68 @@ public class ReviewServiceApplicationTests extends MySqlTestBase {
                 .jsonPath("$[2].reviewId").isEqualTo(3);
     }
 
+    @Test
+    public void getReviewsByPage() {
+        int productId = 1;
+        sendCreateReviewEvent(productId, 3);
+        sendCreateReviewEvent(productId, 1);
+        sendCreateReviewEvent(productId, 2);
+
+        getAndVerifyReviewsByProductId(productId + "?limit=2", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].reviewId").isEqualTo(1)
+                .jsonPath("$[1].reviewId").isEqualTo(2);
+
+        getAndVerifyReviewsByProductId(productId + "?after=2&limit=2", HttpStatus.OK)
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].reviewId").isEqualTo(3);
+
+        getAndVerifyReviewsByProductId(productId + "?limit=0", HttpStatus.UNPROCESSABLE_ENTITY)
+                .jsonPath("$.message").isEqualTo("Invalid limit: 0");
+    }
+
+    @Test
+    public void getReviewsByProductIds() {
+        sendCreateReviewEvent(1, 1);
+        sendCreateReviewEvent(1, 2);
+        sendCreateReviewEvent(2, 1);
+        sendCreateReviewEvent(3, 1);
+
+        client.get()
+                .uri("/review?productId=1,2")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.OK)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3);
+
+        client.get()
+                .uri("/review?productId=2,1&limit=1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.OK)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].productId").isEqualTo(1)
+                .jsonPath("$[0].reviewId").isEqualTo(1)
+                .jsonPath("$[1].productId").isEqualTo(2);
+    }
+
+    @Test
+    public void processEventBatch() {
+        messageBatchProcessor.accept(List.of(
+                new Event<>(CREATE, 1, new Review(1, 1, "a", "s", "c", null)),
+                new Event<>(CREATE, 1, new Review(1, 2, "a", "s", "c", null)),
+                new Event<>(CREATE, 2, new Review(2, 1, "a", "s", "c", null))));
+        assertEquals(2, repository.findByProductId(1).size());
+        assertEquals(1, repository.findByProductId(2).size());
+
+        messageBatchProcessor.accept(List.of(
+                new Event<>(DELETE, 1, null),
+                new Event<>(DELETE, 2, null)));
+        assertEquals(0, repository.count());
+    }
+
     @Test
     public void deleteReviews() {
         int productId = 1;
@@ -69,6 +135,20 @@ public class ReviewServiceApplicationTests extends MySqlTestBase {
         sendDeleteReviewEvent(productId);
     }
 
+    @Test
+    public void deleteReviewsReturnsTheCount() {
+        sendCreateReviewEvent(1, 1);
+        sendCreateReviewEvent(1, 2);
+
+        client.delete()
+                .uri("/review/1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.OK)
+                .expectBody(Long.class).isEqualTo(2L);
+        assertEquals(0, repository.findByProductId(1).size());
+    }
+
     @Test
     public void getReviewsNotFound() {
         getAndVerifyReviewsByProductId(213, HttpStatus.OK)
@@ -0,0 +1,210 @@
+package sample.authorization;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory authorization service for many short-lived clients. Unlike the default in-memory service,
+ * which keeps every authorization forever and scans all of them to find a token, authorizations are
+ * kept until their last token expires and at most max size of them, and tokens are found through an
+ * index from token value to authorization id.
+ * <p>
+ * Authorizations without any token yet, e.g. waiting for consent, are kept for the pending time to live.
+ * An authorization evicted for size before its tokens expire can no longer be refreshed, introspected or
+ * revoked, its access token stays valid at the resource servers. Hit, miss and eviction counters are
+ * exposed under the cache name "oauth2-authorizations".
+ */
+public class ExpiringOAuth2AuthorizationService implements OAuth2AuthorizationService {
+    private static final Logger LOG = LoggerFactory.getLogger(ExpiringOAuth2AuthorizationService.class);
+
+    static final String CACHE_NAME = "oauth2-authorizations";
+
+    private static final Map<String, Class<? extends OAuth2Token>> TOKEN_TYPES = Map.of(
+            OAuth2ParameterNames.CODE, OAuth2AuthorizationCode.class,
+            OAuth2TokenType.ACCESS_TOKEN.getValue(), OAuth2AccessToken.class,
+            OAuth2TokenType.REFRESH_TOKEN.getValue(), OAuth2RefreshToken.class,
+            OidcParameterNames.ID_TOKEN, OidcIdToken.class,
+            OAuth2ParameterNames.USER_CODE, OAuth2UserCode.class,
+            OAuth2ParameterNames.DEVICE_CODE, OAuth2DeviceCode.class);
+
+    private static final List<Class<? extends OAuth2Token>> TOKEN_CLASSES = List.copyOf(TOKEN_TYPES.values());
+
+    private final Duration pendingTimeToLive;
+    private final Supplier<Instant> clock;
+    private final Map<String, String> idsByToken = new ConcurrentHashMap<>();
+    private final Cache<String, OAuth2Authorization> authorizations;
+
+    public ExpiringOAuth2AuthorizationService(long maxSize, Duration pendingTimeToLive, MeterRegistry meterRegistry) {
+        this(maxSize, pendingTimeToLive, meterRegistry, Instant::now, Ticker.systemTicker());
+    }
+
+    ExpiringOAuth2AuthorizationService(long maxSize, Duration pendingTimeToLive, MeterRegistry meterRegistry,
+                                       Supplier<Instant> clock, Ticker ticker) {
+        LOG.info("Keeps at most {} authorizations until their tokens expire, pending ones for {}", maxSize,
+                pendingTimeToLive);
+        this.pendingTimeToLive = pendingTimeToLive;
+        this.clock = clock;
+        this.authorizations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilLastTokenExpires())
+                .ticker(ticker)
+                .scheduler(Scheduler.systemScheduler())
+                .executor(Runnable::run)
+                .removalListener(this::unindex)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, authorizations, CACHE_NAME);
+        Gauge.builder("oauth2.authorizations.tokens", idsByToken, Map::size)
+                .description("Token values indexed for lookups")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void save(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        String id = authorization.getId();
+        OAuth2Authorization previous = authorizations.asMap().put(id, authorization);
+        Set<String> tokens = tokenValues(authorization);
+        tokens.forEach(token -> idsByToken.put(token, id));
+        if (previous != null) {
+            for (String token : tokenValues(previous)) {
+                if (!tokens.contains(token)) {
+                    idsByToken.remove(token, id);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void remove(OAuth2Authorization authorization) {
+        Assert.notNull(authorization, "authorization cannot be null");
+        authorizations.invalidate(authorization.getId());
+    }
+
+    @Override
+    public OAuth2Authorization findById(String id) {
+        Assert.hasText(id, "id cannot be empty");
+        return authorizations.getIfPresent(id);
+    }
+
+    @Override
+    public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+        Assert.hasText(token, "token cannot be empty");
+        String id = idsByToken.get(token);
+        if (id == null) {
+            return null;
+        }
+        OAuth2Authorization authorization = authorizations.getIfPresent(id);
+        if (authorization == null) {
+            // Indexed just after the authorization expired
+            idsByToken.remove(token, id);
+            return null;
+        }
+        return hasToken(authorization, token, tokenType) ? authorization : null;
+    }
+
+    /**
+     * Runs the pending evictions now instead of on the next accesses.
+     */
+    void cleanUp() {
+        authorizations.cleanUp();
+    }
+
+    private void unindex(String id, OAuth2Authorization authorization, RemovalCause cause) {
+        // A replaced authorization is unindexed by save, which knows the tokens that are still used
+        if (authorization != null && cause != RemovalCause.REPLACED) {
+            tokenValues(authorization).forEach(token -> idsByToken.remove(token, id));
+        }
+    }
+
+    private static Set<String> tokenValues(OAuth2Authorization authorization) {
+        Set<String> values = new HashSet<>();
+        String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+        if (state != null) {
+            values.add(state);
+        }
+        for (Class<? extends OAuth2Token> tokenClass : TOKEN_CLASSES) {
+            OAuth2Authorization.Token<? extends OAuth2Token> token = authorization.getToken(tokenClass);
+            if (token != null) {
+                values.add(token.getToken().getTokenValue());
+            }
+        }
+        return values;
+    }
+
+    private static boolean hasToken(OAuth2Authorization authorization, String token, OAuth2TokenType tokenType) {
+        if (tokenType == null) {
+            return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE))
+                    || authorization.getToken(token) != null;
+        }
+        if (OAuth2ParameterNames.STATE.equals(tokenType.getValue())) {
+            return token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+        }
+        Class<? extends OAuth2Token> tokenClass = TOKEN_TYPES.get(tokenType.getValue());
+        OAuth2Authorization.Token<? extends OAuth2Token> found =
+                tokenClass != null ? authorization.getToken(tokenClass) : null;
+        return found != null && token.equals(found.getToken().getTokenValue());
+    }
+
+    private class UntilLastTokenExpires implements Expiry<String, OAuth2Authorization> {
+        @Override
+        public long expireAfterCreate(String id, OAuth2Authorization authorization, long currentTime) {
+            Instant now = clock.get();
+            Instant expiresAt = null;
+            for (Class<? extends OAuth2Token> tokenClass : TOKEN_CLASSES) {
+                OAuth2Authorization.Token<? extends OAuth2Token> token = authorization.getToken(tokenClass);
+                Instant tokenExpiresAt = token != null ? token.getToken().getExpiresAt() : null;
+                if (tokenExpiresAt != null && (expiresAt == null || tokenExpiresAt.isAfter(expiresAt))) {
+                    expiresAt = tokenExpiresAt;
+                }
+            }
+            if (expiresAt == null) {
+                return pendingTimeToLive.toNanos();
+            }
+            return expiresAt.isAfter(now) ? Duration.between(now, expiresAt).toNanos() : 0;
+        }
+
+        @Override
+        public long expireAfterUpdate(String id, OAuth2Authorization authorization, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(id, authorization, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String id, OAuth2Authorization authorization, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package sample.config;
 
+import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -20,8 +24,12 @@ import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
 import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.authentication.*;
 import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
@@ -31,11 +39,15 @@ import org.springframework.security.oauth2.server.authorization.config.annotatio
 import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
 import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
 import org.springframework.security.web.util.matcher.RequestMatcher;
-import sample.jose.Jwks;
+import sample.authorization.ExpiringOAuth2AuthorizationService;
+import sample.jose.JwkStore;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
@@ -102,11 +114,59 @@ public class AuthorizationServerConfig {
         return new InMemoryRegisteredClientRepository(writerClient, readerClient);
     }
 
+    /**
+     * Keeps the authorizations in memory until their tokens expire, at most max size of them.
+     */
     @Bean
-    public JWKSource<SecurityContext> jwkSource() {
-        RSAKey rsaKey = Jwks.generateRsa();
-        JWKSet jwkSet = new JWKSet(rsaKey);
-        return (jwkSelector, securitContext) -> jwkSelector.select(jwkSet);
+    public OAuth2AuthorizationService authorizationService(
+            @Value("${app.authorizations.max-size:100000}") long maxSize,
+            @Value("${app.authorizations.pending-time-to-live:5m}") Duration pendingTimeToLive,
+            MeterRegistry meterRegistry) {
+        return new ExpiringOAuth2AuthorizationService(maxSize, pendingTimeToLive, meterRegistry);
+    }
+
+    @Bean
+    public JwkStore jwkStore(@Value("${app.keys.path:keys/jwks.json}") Path path,
+                             @Value("${app.keys.algorithm:RS256}") String algorithm,
+                             @Value("${app.keys.rotation-interval:30d}") Duration rotationInterval,
+                             @Value("${app.keys.overlap:2h}") Duration overlap) {
+        return new JwkStore(path, JWSAlgorithm.parse(algorithm), rotationInterval, overlap);
+    }
+
+    /**
+     * All published keys, used to verify tokens and served by the JWK set endpoint.
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource(JwkStore jwkStore) {
+        return (jwkSelector, securitContext) -> jwkSelector.select(new JWKSet(jwkStore.keys()));
+    }
+
+    /**
+     * Signs with the signing key only, a newer key is published but does not sign yet.
+     */
+    @Bean
+    public JwtEncoder jwtEncoder(JwkStore jwkStore) {
+        return new NimbusJwtEncoder((jwkSelector, securitContext) ->
+                jwkSelector.select(new JWKSet(jwkStore.signingKey())));
+    }
+
+    /**
+     * Signs the tokens with the algorithm of the signing key instead of the default RS256.
+     */
+    @Bean
+    public OAuth2TokenCustomizer<JwtEncodingContext> signingAlgorithmCustomizer(JwkStore jwkStore) {
+        return context -> context.getJwsHeader()
+                .algorithm(SignatureAlgorithm.from(jwkStore.signingKey().getAlgorithm().getName()));
+    }
+
+    @Bean
+    public FilterRegistrationBean<JwkSetFilter> jwkSetFilter(JwkStore jwkStore,
+                                                             AuthorizationServerSettings authorizationServerSettings,
+                                                             @Value("${app.keys.jwks-max-age:5m}") Duration maxAge) {
+        FilterRegistrationBean<JwkSetFilter> registration = new FilterRegistrationBean<>(
+                new JwkSetFilter(authorizationServerSettings.getJwkSetEndpoint(), jwkStore, maxAge));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
     }
 
     @Bean
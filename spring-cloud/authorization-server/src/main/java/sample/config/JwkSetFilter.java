@@ -0,0 +1,53 @@
+package sample.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import sample.jose.JwkStore;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Serves the JWK set endpoint from the serialized set kept by the {@link JwkStore}, ahead of the security
+ * filters. Responses carry an ETag and may be cached by resource servers for max-age; a request whose
+ * If-None-Match matches is answered with 304.
+ */
+public class JwkSetFilter extends OncePerRequestFilter {
+    private final String endpoint;
+    private final JwkStore jwkStore;
+    private final String cacheControl;
+
+    public JwkSetFilter(String endpoint, JwkStore jwkStore, Duration maxAge) {
+        this.endpoint = endpoint;
+        this.jwkStore = jwkStore;
+        this.cacheControl = "public, max-age=" + maxAge.toSeconds();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !request.getRequestURI().equals(request.getContextPath() + endpoint);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        JwkStore.PublishedKeys keys = jwkStore.published();
+        response.setHeader(HttpHeaders.ETAG, keys.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(keys.etag()) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(keys.json().length);
+        response.getOutputStream().write(keys.json());
+    }
+}
@@ -0,0 +1,227 @@
+package sample.jose;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Signing keys kept in a JWK set file, so that a restart neither regenerates them nor invalidates the
+ * tokens issued before it. A successor is generated an overlap before the signing key is due for
+ * rotation, or when the algorithm changes, and is published for the overlap before it signs, so that
+ * resource servers know it before they see tokens signed with it; the previous key signs until then. A
+ * replaced key stays published for the overlap after its successor took over, so tokens signed with it
+ * keep verifying, and is dropped afterwards. Only the first key of a new store signs right away.
+ * <p>
+ * Rotation is checked when the keys are used, there is no timer. The public part of the set is
+ * serialized once per change together with its ETag, so serving it costs nothing.
+ */
+public class JwkStore {
+    private static final Logger LOG = LoggerFactory.getLogger(JwkStore.class);
+
+    private static final Comparator<JWK> NEWEST_FIRST = Comparator.comparing(JwkStore::issued).reversed();
+
+    private final Path file;
+    private final JWSAlgorithm algorithm;
+    private final Duration rotationInterval;
+    private final Duration overlap;
+    private final Supplier<Instant> clock;
+
+    private volatile Keys keys;
+
+    public JwkStore(Path file, JWSAlgorithm algorithm, Duration rotationInterval, Duration overlap) {
+        this(file, algorithm, rotationInterval, overlap, Instant::now);
+    }
+
+    JwkStore(Path file, JWSAlgorithm algorithm, Duration rotationInterval, Duration overlap, Supplier<Instant> clock) {
+        if (!JWSAlgorithm.RS256.equals(algorithm) && !JWSAlgorithm.ES256.equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported signing algorithm: " + algorithm);
+        }
+        if (overlap.compareTo(rotationInterval) >= 0) {
+            throw new IllegalArgumentException("The overlap " + overlap
+                    + " must be shorter than the rotation interval " + rotationInterval);
+        }
+        LOG.info("Keeps {} signing keys in {}, rotated every {} with an overlap of {}", algorithm, file,
+                rotationInterval, overlap);
+        this.file = file;
+        this.algorithm = algorithm;
+        this.rotationInterval = rotationInterval;
+        this.overlap = overlap;
+        this.clock = clock;
+        this.keys = rotate(load());
+    }
+
+    /**
+     * Returns all published keys with their private parts, newest first.
+     */
+    public List<JWK> keys() {
+        return current().all();
+    }
+
+    /**
+     * Returns the key that signs new tokens, which is not necessarily the newest one.
+     */
+    public JWK signingKey() {
+        return current().signing();
+    }
+
+    /**
+     * Returns the public keys as served by the JWK set endpoint.
+     */
+    public PublishedKeys published() {
+        return current().published();
+    }
+
+    private Keys current() {
+        Keys current = keys;
+        if (clock.get().isBefore(current.checkAt())) {
+            return current;
+        }
+        synchronized (this) {
+            if (!clock.get().isBefore(keys.checkAt())) {
+                keys = rotate(keys.all());
+            }
+            return keys;
+        }
+    }
+
+    private Keys rotate(List<JWK> loaded) {
+        Instant now = clock.get();
+        List<JWK> all = new ArrayList<>(loaded);
+        all.sort(NEWEST_FIRST);
+
+        if (all.isEmpty() || !algorithm.equals(all.get(0).getAlgorithm())
+                || !issued(all.get(0)).plus(rotationInterval).minus(overlap).isAfter(now)) {
+            JWK generated = generate(now);
+            LOG.info("Generated the {} signing key {}, it signs from {}", algorithm, generated.getKeyID(),
+                    all.isEmpty() ? now : signsFrom(generated));
+            all.add(0, generated);
+        }
+
+        // The newest key published for the overlap signs, the newer ones are not known everywhere yet
+        int signing = 0;
+        while (signing < all.size() - 1 && signsFrom(all.get(signing)).isAfter(now)) {
+            signing++;
+        }
+        Instant checkAt = issued(all.get(0)).plus(rotationInterval).minus(overlap);
+        for (int i = 0; i < signing; i++) {
+            checkAt = earliest(checkAt, signsFrom(all.get(i)));
+        }
+
+        // A key is dropped once its successor has signed for the overlap
+        List<JWK> kept = new ArrayList<>(all.subList(0, signing + 1));
+        for (int i = signing + 1; i < all.size(); i++) {
+            Instant retiredAt = signsFrom(all.get(i - 1)).plus(overlap);
+            if (retiredAt.isAfter(now)) {
+                kept.add(all.get(i));
+                checkAt = earliest(checkAt, retiredAt);
+            } else {
+                LOG.info("Dropped the signing key {}", all.get(i).getKeyID());
+            }
+        }
+
+        if (!kept.equals(loaded)) {
+            save(kept);
+        }
+        JWKSet publicKeys = new JWKSet(kept).toPublicJWKSet();
+        byte[] json = publicKeys.toString().getBytes(StandardCharsets.UTF_8);
+        return new Keys(List.copyOf(kept), kept.get(signing),
+                new PublishedKeys(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\""), checkAt);
+    }
+
+    private Instant signsFrom(JWK key) {
+        return issued(key).plus(overlap);
+    }
+
+    private JWK generate(Instant now) {
+        // JWK issue times are serialized in seconds
+        Date issued = Date.from(now.truncatedTo(ChronoUnit.SECONDS));
+        if (JWSAlgorithm.ES256.equals(algorithm)) {
+            return new ECKey.Builder(Jwks.generateEc())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm)
+                    .issueTime(issued)
+                    .build();
+        }
+        return new RSAKey.Builder(Jwks.generateRsa())
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(algorithm)
+                .issueTime(issued)
+                .build();
+    }
+
+    private List<JWK> load() {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            List<JWK> loaded = JWKSet.parse(Files.readString(file)).getKeys().stream()
+                    .filter(JWK::isPrivate)
+                    .toList();
+            LOG.info("Loaded {} signing keys from {}", loaded.size(), file);
+            return loaded;
+        } catch (IOException | ParseException ex) {
+            LOG.warn("Can't read the signing keys from {}, starts with new keys: {}", file, ex.toString());
+            return List.of();
+        }
+    }
+
+    private void save(List<JWK> keys) {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                if (Files.getFileAttributeView(temp, PosixFileAttributeView.class) != null) {
+                    Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+                }
+                Files.writeString(temp, new JWKSet(keys).toString(false));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can't save the signing keys to " + file, ex);
+        }
+    }
+
+    private static Instant issued(JWK key) {
+        return key.getIssueTime() != null ? key.getIssueTime().toInstant() : Instant.EPOCH;
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * The public JWK set as served, with the ETag of exactly these bytes.
+     */
+    public record PublishedKeys(byte[] json, String etag) {
+    }
+
+    private record Keys(List<JWK> all, JWK signing, PublishedKeys published, Instant checkAt) {
+    }
+}
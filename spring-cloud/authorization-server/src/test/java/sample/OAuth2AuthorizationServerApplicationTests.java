@@ -1,24 +1,38 @@
 package sample;
 
 import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jwt.SignedJWT;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import sample.jose.JwkStore;
 
 import java.util.Base64;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest(properties = {"eureka.client.enabled=false", "spring.cloud.config.enabled=false"})
+@SpringBootTest(properties = {"eureka.client.enabled=false", "spring.cloud.config.enabled=false",
+        "app.keys.path=target/test-keys/jwks.json"})
 @AutoConfigureMockMvc
 public class OAuth2AuthorizationServerApplicationTests {
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    JwkStore jwkStore;
+
+    @Autowired
+    ObjectMapper mapper;
+
     @Test
     void requestTokenUsingClientCredentialsGrantType() throws Exception {
         String base64Credentials = Base64.getEncoder().encodeToString("writer:secret-writer".getBytes());
@@ -28,6 +42,21 @@ public class OAuth2AuthorizationServerApplicationTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void tokenIsSignedWithThePublishedKey() throws Exception {
+        String base64Credentials = Base64.getEncoder().encodeToString("writer:secret-writer".getBytes());
+        String body = mvc.perform(post("/oauth2/token")
+                        .param("grant_type", "client_credentials")
+                        .header("Authorization", "Basic " + base64Credentials))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        SignedJWT token = SignedJWT.parse((String) mapper.readValue(body, Map.class).get("access_token"));
+        assertEquals(jwkStore.signingKey().getKeyID(), token.getHeader().getKeyID());
+        assertEquals(jwkStore.signingKey().getAlgorithm(), token.getHeader().getAlgorithm());
+        assertTrue(jwkStore.keys().contains(jwkStore.signingKey()));
+    }
+
     @Test
     void requestOpenIdConfiguration() throws Exception {
         mvc.perform(get("/.well-known/openid-configuration"))
@@ -37,7 +66,16 @@ public class OAuth2AuthorizationServerApplicationTests {
     @Test
     void requestJwkSet() throws Exception {
         mvc.perform(get("/oauth2/jwks"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys[0].kid").value(jwkStore.keys().get(0).getKeyID()))
+                .andExpect(header().string("ETag", jwkStore.published().etag()))
+                .andExpect(header().string("Cache-Control", "public, max-age=300"));
+    }
+
+    @Test
+    void requestUnchangedJwkSet() throws Exception {
+        mvc.perform(get("/oauth2/jwks").header("If-None-Match", jwkStore.published().etag()))
+                .andExpect(status().isNotModified());
     }
 
     @Test
@@ -0,0 +1,146 @@
+package sample.authorization;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ExpiringOAuth2AuthorizationServiceTests {
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+    private static final OAuth2TokenType STATE = new OAuth2TokenType(OAuth2ParameterNames.STATE);
+
+    private static final RegisteredClient CLIENT = RegisteredClient.withId("writer-id")
+            .clientId("writer")
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .build();
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+    private ExpiringOAuth2AuthorizationService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = service(100);
+    }
+
+    @Test
+    void authorizationIsFoundByIdAndToken() {
+        OAuth2Authorization authorization = authorization("1", "access-1", Duration.ofMinutes(5));
+        service.save(authorization);
+
+        assertEquals(authorization, service.findById("1"));
+        assertEquals(authorization, service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(authorization, service.findByToken("access-1", null));
+        assertNull(service.findByToken("access-1", OAuth2TokenType.REFRESH_TOKEN));
+        assertNull(service.findByToken("unknown", OAuth2TokenType.ACCESS_TOKEN));
+    }
+
+    @Test
+    void authorizationExpiresWithItsLastToken() {
+        service.save(OAuth2Authorization.from(authorization("1", "access-1", Duration.ofMinutes(5)))
+                .refreshToken(new OAuth2RefreshToken("refresh-1", START, START.plus(Duration.ofHours(1))))
+                .build());
+
+        advance(Duration.ofMinutes(30));
+        assertEquals("1", service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN).getId());
+
+        advance(Duration.ofMinutes(30));
+        assertNull(service.findById("1"));
+        assertNull(service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN));
+        service.cleanUp();
+        assertEquals(0, indexedTokens());
+    }
+
+    @Test
+    void pendingAuthorizationExpiresAfterThePendingTimeToLive() {
+        service.save(OAuth2Authorization.withRegisteredClient(CLIENT)
+                .id("1")
+                .principalName("user")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .attribute(OAuth2ParameterNames.STATE, "state-1")
+                .build());
+
+        assertEquals("1", service.findByToken("state-1", STATE).getId());
+
+        advance(Duration.ofMinutes(5));
+        assertNull(service.findByToken("state-1", STATE));
+    }
+
+    @Test
+    void replacedTokenIsNoLongerFound() {
+        service.save(authorization("1", "access-1", Duration.ofMinutes(5)));
+        service.save(authorization("1", "access-2", Duration.ofMinutes(5)));
+
+        assertNull(service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals("1", service.findByToken("access-2", OAuth2TokenType.ACCESS_TOKEN).getId());
+        assertEquals(1, indexedTokens());
+    }
+
+    @Test
+    void removedAuthorizationIsNoLongerFound() {
+        OAuth2Authorization authorization = authorization("1", "access-1", Duration.ofMinutes(5));
+        service.save(authorization);
+
+        service.remove(authorization);
+
+        assertNull(service.findById("1"));
+        assertNull(service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN));
+        assertEquals(0, indexedTokens());
+    }
+
+    @Test
+    void authorizationsAreBoundedByMaxSize() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = service(10);
+        for (int i = 0; i < 100; i++) {
+            service.save(authorization(String.valueOf(i), "access-" + i, Duration.ofMinutes(5)));
+        }
+
+        service.cleanUp();
+
+        assertEquals(10, meterRegistry.get("cache.size").tag("cache", "oauth2-authorizations").gauge().value());
+        assertEquals(10, indexedTokens());
+    }
+
+    private ExpiringOAuth2AuthorizationService service(long maxSize) {
+        return new ExpiringOAuth2AuthorizationService(maxSize, Duration.ofMinutes(5), meterRegistry,
+                () -> START.plusNanos(ticker.get()), ticker::get);
+    }
+
+    private static OAuth2Authorization authorization(String id, String accessToken, Duration timeToLive) {
+        return OAuth2Authorization.withRegisteredClient(CLIENT)
+                .id(id)
+                .principalName("writer")
+                .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken, START,
+                        START.plus(timeToLive)))
+                .build();
+    }
+
+    private void advance(Duration duration) {
+        ticker.addAndGet(TimeUnit.NANOSECONDS.convert(duration));
+    }
+
+    private double indexedTokens() {
+        return meterRegistry.get("oauth2.authorizations.tokens").gauge().value();
+    }
+}
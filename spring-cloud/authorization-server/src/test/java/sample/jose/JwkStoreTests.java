@@ -0,0 +1,139 @@
+package sample.jose;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwkStoreTests {
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private Instant now = START;
+
+    @Test
+    void keysSurviveARestart() {
+        JWK key = store(JWSAlgorithm.RS256).keys().get(0);
+
+        List<JWK> reloaded = store(JWSAlgorithm.RS256).keys();
+
+        assertEquals(List.of(key), reloaded);
+        assertInstanceOf(RSAKey.class, key);
+        assertTrue(key.isPrivate());
+    }
+
+    @Test
+    void firstKeySignsRightAway() {
+        JwkStore store = store(JWSAlgorithm.RS256);
+
+        assertEquals(List.of(store.signingKey()), store.keys());
+    }
+
+    @Test
+    void successorIsPublishedForTheOverlapBeforeItSigns() {
+        JwkStore store = store(JWSAlgorithm.RS256);
+        JWK first = store.signingKey();
+
+        advance(Duration.ofDays(30).minusHours(2));
+        List<JWK> published = store.keys();
+        assertEquals(2, published.size());
+        JWK successor = published.get(0);
+        assertNotEquals(first, successor);
+        assertEquals(first, published.get(1));
+        assertEquals(first, store.signingKey());
+        assertEquals(published, store(JWSAlgorithm.RS256).keys());
+        assertEquals(first, store(JWSAlgorithm.RS256).signingKey());
+
+        advance(Duration.ofHours(2).minusSeconds(1));
+        assertEquals(first, store.signingKey());
+
+        advance(Duration.ofSeconds(1));
+        assertEquals(successor, store.signingKey());
+        assertEquals(published, store.keys());
+    }
+
+    @Test
+    void replacedKeyIsDroppedOnceItsSuccessorSignedForTheOverlap() {
+        JwkStore store = store(JWSAlgorithm.RS256);
+        advance(Duration.ofDays(30).minusHours(2));
+        JWK successor = store.keys().get(0);
+        advance(Duration.ofHours(2));
+        assertEquals(successor, store.signingKey());
+        assertEquals(2, store.keys().size());
+
+        advance(Duration.ofHours(2).minusSeconds(1));
+        assertEquals(2, store.keys().size());
+
+        advance(Duration.ofSeconds(1));
+        assertEquals(List.of(successor), store.keys());
+        assertEquals(List.of(successor), store(JWSAlgorithm.RS256).keys());
+    }
+
+    @Test
+    void changedAlgorithmRotatesTheKey() {
+        JWK rsa = store(JWSAlgorithm.RS256).keys().get(0);
+
+        List<JWK> keys = store(JWSAlgorithm.ES256).keys();
+
+        assertInstanceOf(ECKey.class, keys.get(0));
+        assertEquals(JWSAlgorithm.ES256, keys.get(0).getAlgorithm());
+        assertEquals(rsa, keys.get(1));
+        assertEquals(rsa, store(JWSAlgorithm.ES256).signingKey());
+
+        advance(Duration.ofHours(2));
+        assertEquals(keys.get(0), store(JWSAlgorithm.ES256).signingKey());
+    }
+
+    @Test
+    void publishedKeysArePublicWithAStableETag() {
+        JwkStore store = store(JWSAlgorithm.RS256);
+        JwkStore.PublishedKeys published = store.published();
+        String json = new String(published.json());
+
+        assertTrue(json.contains(store.keys().get(0).getKeyID()));
+        assertFalse(json.contains("\"d\""));
+        assertEquals(published.etag(), store(JWSAlgorithm.RS256).published().etag());
+
+        advance(Duration.ofDays(30).minusHours(2));
+        assertNotEquals(published.etag(), store.published().etag());
+    }
+
+    @Test
+    void overlapMustBeShorterThanTheRotationInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new JwkStore(dir.resolve("jwks.json"), JWSAlgorithm.RS256,
+                Duration.ofHours(2), Duration.ofHours(2), () -> now));
+    }
+
+    @Test
+    void unreadableFileStartsWithNewKeys() throws IOException {
+        Files.writeString(dir.resolve("jwks.json"), "{");
+
+        assertEquals(1, store(JWSAlgorithm.RS256).keys().size());
+    }
+
+    private JwkStore store(JWSAlgorithm algorithm) {
+        return new JwkStore(dir.resolve("jwks.json"), algorithm, Duration.ofDays(30), Duration.ofHours(2), () -> now);
+    }
+
+    private void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+}
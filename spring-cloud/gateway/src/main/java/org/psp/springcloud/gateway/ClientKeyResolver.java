@@ -0,0 +1,27 @@
+package org.psp.springcloud.gateway;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rate limits each caller by the client_id claim of its access token, falling back to the subject for
+ * tokens without one. Requests without a token resolve to no key and are denied by the rate limiter.
+ */
+@Component
+public class ClientKeyResolver implements KeyResolver {
+    static final String CLIENT_ID_CLAIM = "client_id";
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        return exchange.getPrincipal()
+                .filter(JwtAuthenticationToken.class::isInstance)
+                .map(JwtAuthenticationToken.class::cast)
+                .map(token -> {
+                    String clientId = token.getToken().getClaimAsString(CLIENT_ID_CLAIM);
+                    return clientId != null ? clientId : token.getName();
+                });
+    }
+}
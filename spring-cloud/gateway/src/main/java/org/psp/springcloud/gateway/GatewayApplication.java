@@ -1,12 +1,15 @@
 package org.psp.springcloud.gateway;
 
+import org.psp.common.security.JwtDecoderConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @SpringBootApplication
+@Import(JwtDecoderConfiguration.class)
 public class GatewayApplication {
     @Bean
     @LoadBalanced
@@ -1,51 +1,73 @@
 package org.psp.springcloud.gateway;
 
+import org.psp.common.health.CachedHealthIndicator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.CompositeReactiveHealthContributor;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.ReactiveHealthContributor;
-import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import static java.util.logging.Level.FINE;
-
 
+/**
+ * Health of the microservices behind the gateway, checked in parallel in the background every
+ * app.health.interval with a timeout of app.health.timeout, see {@link CachedHealthIndicator}.
+ */
 @Configuration
-public class HealthCheckConfiguration {
+public class HealthCheckConfiguration implements DisposableBean {
     private static final Logger LOG = LoggerFactory.getLogger(HealthCheckConfiguration.class);
 
     private final WebClient webClient;
+    private final Duration interval;
+    private final Duration timeout;
+    private final Map<String, CachedHealthIndicator> registry = new LinkedHashMap<>();
 
     @Autowired
-    public HealthCheckConfiguration(WebClient.Builder webClientBuilder) {
+    public HealthCheckConfiguration(WebClient.Builder webClientBuilder,
+                                    @Value("${app.health.interval:10s}") Duration interval,
+                                    @Value("${app.health.timeout:3s}") Duration timeout) {
         this.webClient = webClientBuilder.build();
+        this.interval = interval;
+        this.timeout = timeout;
     }
 
     @Bean
     ReactiveHealthContributor healthCheckMicroservices() {
-        final Map<String, ReactiveHealthIndicator> registry = new LinkedHashMap<>();
-        registry.put("product", () -> getHealth("http://product"));
-        registry.put("recommendation", () -> getHealth("http://recommendation"));
-        registry.put("review", () -> getHealth("http://review"));
-        registry.put("product-composite", () -> getHealth("http://product-composite"));
+        LOG.info("Checks the health of the microservices every {} with a timeout of {}", interval, timeout);
+        register("product", "http://product");
+        register("recommendation", "http://recommendation");
+        register("review", "http://review");
+        register("product-composite", "http://product-composite");
 
         return CompositeReactiveHealthContributor.fromMap(registry);
     }
 
+    @Override
+    public void destroy() {
+        registry.values().forEach(CachedHealthIndicator::close);
+    }
+
+    private void register(String name, String baseUrl) {
+        registry.put(name, new CachedHealthIndicator(name, getHealth(baseUrl), interval, timeout));
+    }
+
     private Mono<Health> getHealth(String baseUrl) {
         String url = baseUrl + "/actuator/health";
-        LOG.debug("Setting up a call to the Health API on url: {}", url);
-        return webClient.get().uri(url).retrieve().bodyToMono(String.class)
-                .map(s -> new Health.Builder().up().build())
-                .onErrorResume(ex -> Mono.just(new Health.Builder().down().build()))
-                .log(LOG.getName(), FINE);
+        return Mono.defer(() -> {
+            LOG.debug("Calls the Health API on url: {}", url);
+            return webClient.get().uri(url).retrieve().bodyToMono(String.class)
+                    .map(s -> new Health.Builder().up().build())
+                    .onErrorResume(ex -> Mono.just(new Health.Builder().down(ex).build()));
+        });
     }
 }
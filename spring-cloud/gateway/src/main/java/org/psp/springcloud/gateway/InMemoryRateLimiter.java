@@ -0,0 +1,231 @@
+package org.psp.springcloud.gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter for the RequestRateLimiter filter that keeps a token bucket per route and key in the
+ * gateway's memory, so no Redis is needed; each gateway instance enforces its own limits. A route sets
+ * its limits with the args in-memory-rate-limiter.replenish-rate, .burst-capacity and .requested-tokens,
+ * routes without them get the defaults from app.rate-limiter.
+ * <p>
+ * A bucket is a single timestamp, the time at which it would be full again, updated with a compare and
+ * set, so deciding a request takes no lock. Buckets idle for longer than the idle timeout are dropped,
+ * which is harmless as long as the timeout is longer than the time a bucket needs to fill up. Allowed and
+ * rejected requests are counted per route in gateway.rate-limiter.requests; the buckets of a route share
+ * its counters, so the number of meters does not grow with the number of keys. The usage of single keys is
+ * counted in their buckets and read on demand, see {@link RateLimiterEndpoint}.
+ */
+@Component
+public class InMemoryRateLimiter extends AbstractRateLimiter<InMemoryRateLimiter.Config> {
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryRateLimiter.class);
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "in-memory-rate-limiter";
+
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+    static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+    static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+    static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Config defaultConfig;
+    private final Cache<BucketKey, Bucket> buckets;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+
+    @Autowired
+    public InMemoryRateLimiter(@Value("${app.rate-limiter.replenish-rate:100}") int replenishRate,
+                               @Value("${app.rate-limiter.burst-capacity:200}") int burstCapacity,
+                               @Value("${app.rate-limiter.max-keys:100000}") long maxKeys,
+                               @Value("${app.rate-limiter.idle-timeout:10m}") Duration idleTimeout,
+                               ConfigurationService configurationService,
+                               MeterRegistry meterRegistry) {
+        this(new Config().setReplenishRate(replenishRate).setBurstCapacity(burstCapacity), maxKeys, idleTimeout,
+                configurationService, meterRegistry, System::nanoTime);
+    }
+
+    InMemoryRateLimiter(Config defaultConfig, long maxKeys, Duration idleTimeout,
+                        ConfigurationService configurationService, MeterRegistry meterRegistry,
+                        LongSupplier clock) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        LOG.info("Creates an in-memory rate limiter with default {} for at most {} keys", defaultConfig, maxKeys);
+        this.defaultConfig = defaultConfig;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        Gauge.builder("gateway.rate-limiter.keys", buckets, Cache::estimatedSize)
+                .description("Keys with a token bucket in the in-memory rate limiter")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        Bucket bucket = buckets.get(new BucketKey(routeId, id), this::newBucket);
+        return Mono.just(bucket.tryAcquire(config, clock.getAsLong()));
+    }
+
+    private Bucket newBucket(BucketKey key) {
+        return new Bucket(clock.getAsLong(), counter(key.routeId(), "allowed"), counter(key.routeId(), "rejected"));
+    }
+
+    private Counter counter(String routeId, String outcome) {
+        return Counter.builder("gateway.rate-limiter.requests")
+                .description("Requests decided by the in-memory rate limiter")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The keys with the most requests since their bucket was created, heaviest first.
+     */
+    public List<KeyUsage> heaviestKeys(int limit) {
+        Comparator<KeyUsage> byRequests = Comparator.comparingLong(KeyUsage::requests);
+        PriorityQueue<KeyUsage> heaviest = new PriorityQueue<>(byRequests);
+        buckets.asMap().forEach((key, bucket) -> {
+            heaviest.add(new KeyUsage(key.routeId(), key.id(), bucket.allowedCount.sum(),
+                    bucket.rejectedCount.sum()));
+            if (heaviest.size() > limit) {
+                heaviest.poll();
+            }
+        });
+        List<KeyUsage> usage = new ArrayList<>(heaviest);
+        usage.sort(byRequests.reversed());
+        return usage;
+    }
+
+    private static Map<String, String> headers(Config config, long remaining) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(REMAINING_HEADER, Long.toString(remaining));
+        headers.put(REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+        headers.put(BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+        headers.put(REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens()));
+        return headers;
+    }
+
+    /**
+     * Token bucket kept as the time at which it is full again. A request costing n tokens moves that time
+     * n emission intervals ahead and is allowed as long as it stays within burst capacity intervals of now.
+     */
+    static class Bucket {
+        private final AtomicLong fullAt;
+        private final Counter allowed;
+        private final Counter rejected;
+        private final LongAdder allowedCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+
+        Bucket(long now, Counter allowed, Counter rejected) {
+            this.fullAt = new AtomicLong(now);
+            this.allowed = allowed;
+            this.rejected = rejected;
+        }
+
+        Response tryAcquire(Config config, long now) {
+            long interval = NANOS_PER_SECOND / config.getReplenishRate();
+            long capacity = interval * config.getBurstCapacity();
+            long cost = interval * config.getRequestedTokens();
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + cost;
+                long wait = next - now - capacity;
+                if (wait > 0) {
+                    rejected.increment();
+                    rejectedCount.increment();
+                    Map<String, String> headers = headers(config, (capacity - (next - cost - now)) / interval);
+                    headers.put(RETRY_AFTER_HEADER, Long.toString((wait + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND));
+                    return new Response(false, headers);
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    allowed.increment();
+                    allowedCount.increment();
+                    return new Response(true, headers(config, (capacity - (next - now)) / interval));
+                }
+            }
+        }
+    }
+
+    record BucketKey(String routeId, String id) {
+    }
+
+    public record KeyUsage(String routeId, String key, long allowed, long rejected) {
+        public long requests() {
+            return allowed + rejected;
+        }
+    }
+
+    @Validated
+    public static class Config {
+        @Min(1)
+        private int replenishRate = 1;
+
+        @Min(1)
+        private int burstCapacity = 1;
+
+        @Min(1)
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Config{replenishRate=" + replenishRate + ", burstCapacity=" + burstCapacity
+                    + ", requestedTokens=" + requestedTokens + "}";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.psp.springcloud.gateway;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Shows the keys of the in-memory rate limiter with the most requests at /actuator/ratelimiter, at most
+ * the limit parameter of them. The buckets are read when the endpoint is called, so keeping per key usage
+ * costs no meters.
+ */
+@Component
+@Endpoint(id = "ratelimiter")
+public class RateLimiterEndpoint {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final InMemoryRateLimiter rateLimiter;
+
+    public RateLimiterEndpoint(InMemoryRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @ReadOperation
+    public List<InMemoryRateLimiter.KeyUsage> heaviestKeys(@Nullable Integer limit) {
+        return rateLimiter.heaviestKeys(limit == null ? DEFAULT_LIMIT : Math.max(limit, 0));
+    }
+}
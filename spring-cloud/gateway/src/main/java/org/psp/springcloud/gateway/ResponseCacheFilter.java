@@ -0,0 +1,381 @@
+package org.psp.springcloud.gateway;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Caches 200 responses to GET requests on the configured routes, keyed by route, path, query and the
+ * scopes of the caller, so callers with other scopes never see each other's answers. Every cached or
+ * cacheable response carries an ETag, and a request whose If-None-Match matches it is answered with
+ * 304; a cached answer is served without calling the backend at all. Bodies larger than the max entry
+ * size are neither buffered beyond that size nor cached.
+ * <p>
+ * The cache is bounded by the total size of the bodies and evicts by frequency and recency, entries
+ * also expire after the ttl. A successful write to a resource, the first two segments of the path such as
+ * /product-composite/1, drops the cached answers under that resource. A POST to the collection, such as
+ * /product-composite, writes the resource named by the id field of its body. POSTs to the read-only paths
+ * are lookups and drop nothing.
+ * Hit, miss and eviction counters are exposed under the cache name "gateway-response".
+ */
+@Component
+@ConditionalOnProperty(name = "app.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+    private static final Logger LOG = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    static final String CACHE_NAME = "gateway-response";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<HttpMethod> WRITES = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH,
+            HttpMethod.DELETE);
+
+    private final Set<String> routes;
+    private final Set<String> readOnlyPaths;
+    private final String idField;
+    private final int maxEntrySize;
+    private final Cache<Key, CachedResponse> cache;
+    // The cached keys per resource, so a write drops its entries without scanning the cache
+    private final Map<Resource, Set<Key>> keysByResource = new ConcurrentHashMap<>();
+    private final Counter notModifiedCounter;
+
+    public ResponseCacheFilter(@Value("${app.response-cache.routes:product-composite}") Set<String> routes,
+                               @Value("${app.response-cache.read-only-paths:/product-composite/batch}")
+                               Set<String> readOnlyPaths,
+                               @Value("${app.response-cache.id-field:productId}") String idField,
+                               @Value("${app.response-cache.max-size:32MB}") DataSize maxSize,
+                               @Value("${app.response-cache.max-entry-size:256KB}") DataSize maxEntrySize,
+                               @Value("${app.response-cache.ttl:30s}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        LOG.info("Creates a response cache for routes {} with max size = {} and ttl = {}", routes, maxSize, ttl);
+        this.routes = routes;
+        this.readOnlyPaths = readOnlyPaths;
+        this.idField = idField;
+        this.maxEntrySize = Math.toIntExact(maxEntrySize.toBytes());
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<Key, CachedResponse>weigher((key, response) -> key.weight() + response.body().length)
+                .expireAfterWrite(ttl)
+                // Runs on the removing thread, a replaced entry stays cached under the same key
+                .<Key, CachedResponse>removalListener((key, response, cause) -> {
+                    if (cause != RemovalCause.REPLACED) {
+                        unindex(key);
+                    }
+                })
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.notModifiedCounter = Counter.builder("gateway.response-cache.not-modified")
+                .description("Requests answered with 304 because the If-None-Match header matched")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs before the response is written, so the decorated response is the one the body is written to.
+     */
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !routes.contains(route.getId())) {
+            return chain.filter(exchange);
+        }
+        HttpMethod method = exchange.getRequest().getMethod();
+        String path = exchange.getRequest().getPath().value();
+        if (WRITES.contains(method) && !readOnlyPaths.contains(path)) {
+            WriteRequest request = new WriteRequest(exchange.getRequest());
+            return chain.filter(exchange.mutate().request(request).build())
+                    .doOnSuccess(ignored -> invalidate(route.getId(), request, exchange.getResponse()));
+        }
+        if (!HttpMethod.GET.equals(method)) {
+            return chain.filter(exchange);
+        }
+        return exchange.getPrincipal()
+                .map(ResponseCacheFilter::scopes)
+                .defaultIfEmpty("")
+                .flatMap(scopes -> {
+                    Key key = new Key(route.getId(), path, exchange.getRequest().getURI().getRawQuery(), scopes);
+                    CachedResponse cached = cache.getIfPresent(key);
+                    if (cached != null) {
+                        LOG.debug("Found a cached response for {}", key);
+                        return write(exchange.getRequest(), exchange.getResponse(), cached);
+                    }
+                    return chain.filter(exchange.mutate().response(new CachingResponse(exchange, key)).build());
+                });
+    }
+
+    private Mono<Void> write(ServerHttpRequest request, ServerHttpResponse response, CachedResponse cached) {
+        response.getHeaders().setETag(cached.etag());
+        if (notModified(request, cached.etag())) {
+            return notModified(response);
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            response.getHeaders().setContentType(cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> notModified(ServerHttpResponse response) {
+        notModifiedCounter.increment();
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        return response.setComplete();
+    }
+
+    private void put(Key key, CachedResponse response) {
+        // Added inside compute, so that a concurrent unindex cannot drop the set before the key is in it
+        keysByResource.compute(key.resource(), (resource, keys) -> {
+            Set<Key> indexed = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            indexed.add(key);
+            return indexed;
+        });
+        cache.put(key, response);
+    }
+
+    private void unindex(Key key) {
+        keysByResource.computeIfPresent(key.resource(), (resource, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void invalidate(String routeId, WriteRequest request, ServerHttpResponse response) {
+        if (response.getStatusCode() == null || !response.getStatusCode().is2xxSuccessful()) {
+            return;
+        }
+        Resource resource = request.resource(routeId);
+        if (resource == null) {
+            LOG.debug("Drops the cached responses of route {}, the written resource is not known", routeId);
+            keysByResource.keySet().stream()
+                    .filter(candidate -> candidate.routeId().equals(routeId))
+                    .toList()
+                    .forEach(this::invalidate);
+            return;
+        }
+        LOG.debug("Drops the cached responses of {} after a write", resource);
+        invalidate(resource);
+    }
+
+    private void invalidate(Resource resource) {
+        Set<Key> keys = keysByResource.remove(resource);
+        if (keys != null) {
+            cache.invalidateAll(List.copyOf(keys));
+        }
+    }
+
+    private static boolean notModified(ServerHttpRequest request, String etag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean cacheable(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    private static String scopes(Principal principal) {
+        if (!(principal instanceof Authentication authentication)) {
+            return "";
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("SCOPE_"))
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    private static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    /**
+     * Buffers a 200 response of the backend to cache it and tag it with an ETag before it is written. A
+     * body larger than the max entry size is passed through as it arrives, without an ETag.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final ServerHttpRequest request;
+        private final Key key;
+
+        CachingResponse(ServerWebExchange exchange, Key key) {
+            super(exchange.getResponse());
+            this.request = exchange.getRequest();
+            this.key = key;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!HttpStatus.OK.equals(getStatusCode()) || !cacheable(getHeaders())) {
+                return super.writeWith(body);
+            }
+            AtomicLong size = new AtomicLong();
+            return Flux.<DataBuffer>from(body)
+                    .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxEntrySize)
+                    .switchOnFirst((first, buffers) -> size.get() > maxEntrySize
+                            ? passThrough(buffers.concatMapIterable(Function.identity()))
+                            : cacheAndWrite(buffers.concatMapIterable(Function.identity())))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then();
+        }
+
+        private Mono<Void> passThrough(Flux<DataBuffer> body) {
+            LOG.debug("Does not cache the response for {}, it is larger than {} bytes", key, maxEntrySize);
+            return super.writeWith(body);
+        }
+
+        private Mono<Void> cacheAndWrite(Flux<DataBuffer> body) {
+            return DataBufferUtils.join(body, maxEntrySize).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                CachedResponse cached = new CachedResponse(bytes, getHeaders().getContentType(), etag(bytes));
+                put(key, cached);
+                getHeaders().setETag(cached.etag());
+                if (notModified(request, cached.etag())) {
+                    return notModified(getDelegate());
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            }).switchIfEmpty(Mono.defer(() -> getDelegate().setComplete()));
+        }
+    }
+
+    /**
+     * Keeps a copy of the body of a POST to a collection, up to the max entry size, to find the id of the
+     * resource it writes once the backend has accepted it.
+     */
+    private class WriteRequest extends ServerHttpRequestDecorator {
+        private final String path;
+        private final ByteArrayOutputStream body;
+
+        WriteRequest(ServerHttpRequest delegate) {
+            super(delegate);
+            this.path = delegate.getPath().value();
+            this.body = HttpMethod.POST.equals(delegate.getMethod()) && path.indexOf('/', 1) < 0
+                    ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            if (body == null) {
+                return super.getBody();
+            }
+            return super.getBody().doOnNext(this::copy);
+        }
+
+        private synchronized void copy(DataBuffer buffer) {
+            if (body.size() + buffer.readableByteCount() > maxEntrySize) {
+                return;
+            }
+            try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    ByteBuffer bytes = buffers.next();
+                    while (bytes.hasRemaining()) {
+                        body.write(bytes.get());
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the written resource, or null when the body does not name one
+         */
+        synchronized Resource resource(String routeId) {
+            if (body == null) {
+                return new Resource(routeId, resourcePath(path));
+            }
+            try {
+                JsonNode id = MAPPER.readTree(body.toByteArray()).path(idField);
+                return id.isValueNode() ? new Resource(routeId, path + "/" + id.asText()) : null;
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The first two segments of the path, /product-composite/1/reviews belongs to /product-composite/1.
+     */
+    static String resourcePath(String path) {
+        int collectionEnd = path.indexOf('/', 1);
+        if (collectionEnd < 0) {
+            return path;
+        }
+        int resourceEnd = path.indexOf('/', collectionEnd + 1);
+        return resourceEnd < 0 ? path : path.substring(0, resourceEnd);
+    }
+
+    record Key(String routeId, String path, String query, String scopes) {
+        int weight() {
+            return path.length() + (query == null ? 0 : query.length()) + scopes.length();
+        }
+
+        Resource resource() {
+            return new Resource(routeId, resourcePath(path));
+        }
+    }
+
+    record Resource(String routeId, String path) {
+    }
+
+    record CachedResponse(byte[] body, MediaType contentType, String etag) {
+    }
+}
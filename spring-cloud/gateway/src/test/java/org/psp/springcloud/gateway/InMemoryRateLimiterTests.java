@@ -0,0 +1,150 @@
+package org.psp.springcloud.gateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InMemoryRateLimiterTests {
+    private static final String ROUTE = "product-composite";
+
+    private AtomicLong clock;
+    private MeterRegistry meterRegistry;
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(-TimeUnit.HOURS.toNanos(1));
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new InMemoryRateLimiter(new InMemoryRateLimiter.Config().setReplenishRate(1).setBurstCapacity(3),
+                1000, Duration.ofMinutes(10), null, meterRegistry, clock::get);
+    }
+
+    @Test
+    void burstIsAllowedThenRejected() {
+        assertEquals("2", allowed("writer").getHeaders().get(InMemoryRateLimiter.REMAINING_HEADER));
+        allowed("writer");
+        assertEquals("0", allowed("writer").getHeaders().get(InMemoryRateLimiter.REMAINING_HEADER));
+
+        Response rejected = isAllowed("writer");
+        assertFalse(rejected.isAllowed());
+        assertEquals("0", rejected.getHeaders().get(InMemoryRateLimiter.REMAINING_HEADER));
+        assertEquals("1", rejected.getHeaders().get(InMemoryRateLimiter.RETRY_AFTER_HEADER));
+        assertEquals("3", rejected.getHeaders().get(InMemoryRateLimiter.BURST_CAPACITY_HEADER));
+    }
+
+    @Test
+    void tokensAreReplenishedOverTime() {
+        exhaust("writer");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(isAllowed("writer").isAllowed());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        allowed("writer");
+        assertFalse(isAllowed("writer").isAllowed());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        exhaust("writer");
+    }
+
+    @Test
+    void keysAndRoutesHaveTheirOwnBuckets() {
+        exhaust("writer");
+
+        allowed("reader");
+        assertTrue(rateLimiter.isAllowed("other", "writer").block().isAllowed());
+    }
+
+    @Test
+    void routeConfigOverridesTheDefault() {
+        rateLimiter.getConfig().put(ROUTE, new InMemoryRateLimiter.Config().setReplenishRate(10).setBurstCapacity(10)
+                .setRequestedTokens(5));
+
+        assertEquals("5", allowed("writer").getHeaders().get(InMemoryRateLimiter.REMAINING_HEADER));
+        allowed("writer");
+        assertFalse(isAllowed("writer").isAllowed());
+    }
+
+    @Test
+    void decisionsAreCountedPerRoute() {
+        exhaust("writer");
+        isAllowed("writer");
+        allowed("reader");
+        assertTrue(rateLimiter.isAllowed("other", "writer").block().isAllowed());
+
+        assertEquals(4.0, count(ROUTE, "allowed"));
+        assertEquals(2.0, count(ROUTE, "rejected"));
+        assertEquals(1.0, count("other", "allowed"));
+        assertEquals(4, meterRegistry.find("gateway.rate-limiter.requests").counters().size());
+    }
+
+    @Test
+    void usageOfTheHeaviestKeysIsVisible() {
+        exhaust("writer");
+        allowed("reader");
+        allowed("reader");
+        allowed("guest");
+
+        assertEquals(List.of(new InMemoryRateLimiter.KeyUsage(ROUTE, "writer", 3, 1),
+                        new InMemoryRateLimiter.KeyUsage(ROUTE, "reader", 2, 0)),
+                rateLimiter.heaviestKeys(2));
+    }
+
+    @Test
+    void concurrentCallersGetExactlyTheBurst() {
+        rateLimiter.getConfig().put(ROUTE, new InMemoryRateLimiter.Config().setReplenishRate(1).setBurstCapacity(100));
+        AtomicInteger allowed = new AtomicInteger();
+        List<CompletableFuture<Void>> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(CompletableFuture.runAsync(() -> {
+                for (int call = 0; call < 50; call++) {
+                    if (isAllowed("writer").isAllowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        callers.forEach(CompletableFuture::join);
+
+        assertEquals(100, allowed.get());
+    }
+
+    private void exhaust(String key) {
+        for (int i = 0; i < 3; i++) {
+            allowed(key);
+        }
+        assertFalse(isAllowed(key).isAllowed());
+    }
+
+    private Response allowed(String key) {
+        Response response = isAllowed(key);
+        assertTrue(response.isAllowed());
+        return response;
+    }
+
+    private Response isAllowed(String key) {
+        return rateLimiter.isAllowed(ROUTE, key).block();
+    }
+
+    private double count(String routeId, String outcome) {
+        return meterRegistry.get("gateway.rate-limiter.requests")
+                .tag("route", routeId)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
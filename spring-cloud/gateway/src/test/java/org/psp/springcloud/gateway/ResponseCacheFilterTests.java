@@ -0,0 +1,192 @@
+package org.psp.springcloud.gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+public class ResponseCacheFilterTests {
+    private static final String BODY = "{\"productId\":1}";
+
+    private ResponseCacheFilter filter;
+    private AtomicInteger backendCalls;
+    private HttpStatus backendStatus;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ResponseCacheFilter(Set.of("product-composite"), Set.of("/product-composite/batch"),
+                "productId", DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        backendCalls = new AtomicInteger();
+        backendStatus = HttpStatus.OK;
+    }
+
+    @Test
+    void secondGetIsServedFromTheCache() {
+        MockServerWebExchange first = get("/product-composite/1", "SCOPE_product:read");
+        MockServerWebExchange second = get("/product-composite/1", "SCOPE_product:read");
+
+        assertEquals(BODY, first.getResponse().getBodyAsString().block());
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+        assertEquals(HttpStatus.OK, second.getResponse().getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, second.getResponse().getHeaders().getContentType());
+        assertNotNull(first.getResponse().getHeaders().getETag());
+        assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+        assertEquals(1, backendCalls.get());
+    }
+
+    @Test
+    void matchingETagIsAnsweredWithNotModified() {
+        String etag = get("/product-composite/1", "SCOPE_product:read").getResponse().getHeaders().getETag();
+
+        MockServerWebExchange cached = get("/product-composite/1", "SCOPE_product:read", etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, cached.getResponse().getStatusCode());
+        assertEquals("", cached.getResponse().getBodyAsString().block());
+        assertEquals(1, backendCalls.get());
+
+        MockServerWebExchange changed = get("/product-composite/1", "SCOPE_product:read", "\"other\"");
+        assertEquals(HttpStatus.OK, changed.getResponse().getStatusCode());
+        assertEquals(BODY, changed.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    void matchingETagOnAMissIsAnsweredWithNotModified() {
+        String etag = get("/product-composite/1", "SCOPE_product:read").getResponse().getHeaders().getETag();
+
+        MockServerWebExchange exchange = get("/product-composite/1", "SCOPE_product:write", etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+        assertEquals(2, backendCalls.get());
+    }
+
+    @Test
+    void callersWithOtherScopesOrQueriesDoNotShareEntries() {
+        get("/product-composite/1", "SCOPE_product:read");
+        get("/product-composite/1", "SCOPE_product:write");
+        get("/product-composite/1?parts=reviews", "SCOPE_product:read");
+        get("/product-composite/1", "SCOPE_product:read");
+
+        assertEquals(3, backendCalls.get());
+    }
+
+    @Test
+    void deleteDropsTheCachedResponsesOfTheProduct() {
+        get("/product-composite/1", "SCOPE_product:read");
+        get("/product-composite/1/reviews", "SCOPE_product:read");
+        get("/product-composite/2", "SCOPE_product:read");
+        write(MockServerHttpRequest.delete("/product-composite/1").build());
+        get("/product-composite/1", "SCOPE_product:read");
+        get("/product-composite/1/reviews", "SCOPE_product:read");
+        get("/product-composite/2", "SCOPE_product:read");
+
+        assertEquals(6, backendCalls.get());
+    }
+
+    @Test
+    void createDropsTheCachedResponsesOfTheProductInTheBody() {
+        get("/product-composite/1", "SCOPE_product:read");
+        get("/product-composite/2", "SCOPE_product:read");
+        write(MockServerHttpRequest.post("/product-composite").body("{\"productId\":1,\"name\":\"n\"}"));
+        get("/product-composite/1", "SCOPE_product:read");
+        get("/product-composite/2", "SCOPE_product:read");
+
+        assertEquals(4, backendCalls.get());
+    }
+
+    @Test
+    void batchLookupAndHeadKeepTheCachedResponses() {
+        get("/product-composite/1", "SCOPE_product:read");
+        write(MockServerHttpRequest.post("/product-composite/batch").body("[1,2]"));
+        write(MockServerHttpRequest.head("/product-composite/1").build());
+        get("/product-composite/1", "SCOPE_product:read");
+
+        assertEquals(3, backendCalls.get());
+    }
+
+    @Test
+    void largeResponseIsPassedThroughUncached() {
+        filter = new ResponseCacheFilter(Set.of("product-composite"), Set.of("/product-composite/batch"),
+                "productId", DataSize.ofMegabytes(1), DataSize.ofBytes(10), Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+
+        MockServerWebExchange first = get("/product-composite/1", "SCOPE_product:read");
+        MockServerWebExchange second = get("/product-composite/1", "SCOPE_product:read");
+
+        assertEquals(BODY, first.getResponse().getBodyAsString().block());
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+        assertNull(first.getResponse().getHeaders().getETag());
+        assertEquals(2, backendCalls.get());
+    }
+
+    @Test
+    void errorsAndOtherRoutesAreNotCached() {
+        backendStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        get("/product-composite/1", "SCOPE_product:read");
+        get("/product-composite/1", "SCOPE_product:read");
+
+        backendStatus = HttpStatus.OK;
+        filter(MockServerWebExchange.from(MockServerHttpRequest.get("/oauth2/jwks")), "oauth2-server", "SCOPE_openid");
+        filter(MockServerWebExchange.from(MockServerHttpRequest.get("/oauth2/jwks")), "oauth2-server", "SCOPE_openid");
+
+        assertEquals(4, backendCalls.get());
+    }
+
+    private MockServerWebExchange get(String path, String scope, String... ifNoneMatch) {
+        MockServerHttpRequest request = MockServerHttpRequest.get(path).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch)
+                .build();
+        return filter(MockServerWebExchange.from(request), "product-composite", scope);
+    }
+
+    private void write(MockServerHttpRequest request) {
+        filter(MockServerWebExchange.from(request), "product-composite", "SCOPE_product:write");
+    }
+
+    private MockServerWebExchange filter(MockServerWebExchange exchange, String routeId, String scope) {
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async().id(routeId).uri("lb://" + routeId)
+                .predicate(ignored -> true).build());
+        ServerWebExchange authenticated = exchange.mutate()
+                .principal(Mono.just(new TestingAuthenticationToken("writer", null, scope)))
+                .build();
+        filter.filter(authenticated, backend()).block();
+        return exchange;
+    }
+
+    private GatewayFilterChain backend() {
+        return exchange -> {
+            backendCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(backendStatus);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            int half = body.length / 2;
+            return exchange.getRequest().getBody()
+                    .doOnNext(DataBufferUtils::release)
+                    .then(response.writeWith(Flux.just(
+                            response.bufferFactory().wrap(Arrays.copyOfRange(body, 0, half)),
+                            response.bufferFactory().wrap(Arrays.copyOfRange(body, half, body.length)))));
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package org.psp.util.messaging;
+
+import org.psp.api.core.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Consumes a batch of events with one bulk write per run of consecutive CREATE or DELETE events, so that
+ * the order of the events in the batch is kept. When a bulk write fails, its run is processed again one
+ * event at a time with the single event processor, and the events that still fail are handed to the dead
+ * letter publisher. One bad event therefore does not send the whole batch to the dead letter queue.
+ * <p>
+ * A bulk write that fails half way, e.g. an ordered Mongo insert hitting a duplicate key, may already have
+ * stored some of the events; those are dead-lettered as duplicates on the second pass.
+ */
+public class EventBatchProcessor<K, T> implements Consumer<List<Event<K, T>>> {
+    private static final Logger LOG = LoggerFactory.getLogger(EventBatchProcessor.class);
+
+    private final String name;
+    private final Function<List<T>, Mono<?>> createAll;
+    private final Function<List<K>, Mono<?>> deleteAll;
+    private final Consumer<Event<K, T>> singleProcessor;
+    private final BiConsumer<Event<K, T>, Throwable> deadLetterPublisher;
+
+    public EventBatchProcessor(String name,
+                               Function<List<T>, Mono<?>> createAll,
+                               Function<List<K>, Mono<?>> deleteAll,
+                               Consumer<Event<K, T>> singleProcessor,
+                               BiConsumer<Event<K, T>, Throwable> deadLetterPublisher) {
+        this.name = name;
+        this.createAll = createAll;
+        this.deleteAll = deleteAll;
+        this.singleProcessor = singleProcessor;
+        this.deadLetterPublisher = deadLetterPublisher;
+    }
+
+    @Override
+    public void accept(List<Event<K, T>> events) {
+        LOG.info("Process a batch of {} {} events...", events.size(), name);
+        int start = 0;
+        while (start < events.size()) {
+            Event.Type type = events.get(start).getEventType();
+            int end = start + 1;
+            while (end < events.size() && Objects.equals(type, events.get(end).getEventType())) {
+                end++;
+            }
+            processRun(type, events.subList(start, end));
+            start = end;
+        }
+        LOG.info("Batch processing done.");
+    }
+
+    private void processRun(Event.Type type, List<Event<K, T>> run) {
+        if (type != Event.Type.CREATE && type != Event.Type.DELETE) {
+            processOneByOne(run);
+            return;
+        }
+        try {
+            if (type == Event.Type.CREATE) {
+                LOG.debug("Create {} {} entities in one bulk write", run.size(), name);
+                createAll.apply(run.stream().map(Event::getData).toList()).block();
+            } else {
+                LOG.debug("Delete {} {} keys in one bulk write", run.size(), name);
+                deleteAll.apply(run.stream().map(Event::getKey).distinct().toList()).block();
+            }
+        } catch (RuntimeException ex) {
+            LOG.warn("Bulk {} of {} {} events failed, will process them one by one: {}", type, run.size(), name,
+                    ex.toString());
+            processOneByOne(run);
+        }
+    }
+
+    private void processOneByOne(List<Event<K, T>> run) {
+        for (Event<K, T> event : run) {
+            try {
+                singleProcessor.accept(event);
+            } catch (RuntimeException ex) {
+                LOG.warn("Event {} for key {} failed, will send it to the dead letter queue: {}",
+                        event.getEventType(), event.getKey(), ex.toString());
+                deadLetterPublisher.accept(event, ex);
+            }
+        }
+    }
+}
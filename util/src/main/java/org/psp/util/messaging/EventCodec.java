@@ -0,0 +1,226 @@
+package org.psp.util.messaging;
+
+import org.psp.api.core.event.Event;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.recommendation.Recommendation;
+import org.psp.api.core.review.Review;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of the events exchanged between the composite and the core services. The
+ * schema is fixed by the field order below: a version byte, the event type, the integer key, the
+ * creation time as epoch second, nanos and zone id, then a tag for the data type followed by its fields.
+ * Strings are written as a varint of their UTF-8 length plus one, zero for null, followed by the bytes.
+ * <p>
+ * A new field must go at the end of its type and come with a new version, so that consumers still
+ * running the old version reject the message instead of misreading it.
+ */
+public final class EventCodec {
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte PRESENT = 1;
+    private static final byte INTEGER = 1;
+
+    private static final byte PRODUCT = 1;
+    private static final byte RECOMMENDATION = 2;
+    private static final byte REVIEW = 3;
+
+    private EventCodec() {
+    }
+
+    public static byte[] encode(Event<?, ?> event) {
+        Writer out = new Writer();
+        out.writeByte(VERSION);
+        out.writeByte(event.getEventType() == null ? -1 : event.getEventType().ordinal());
+        writeKey(out, event.getKey());
+        writeCreatedAt(out, event.getEventCreatedAt());
+        writeData(out, event.getData());
+        return out.toByteArray();
+    }
+
+    public static Event<Integer, Object> decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported event encoding version: " + version);
+            }
+            byte type = in.get();
+            Event.Type eventType = type < 0 ? null : Event.Type.values()[type];
+            Integer key = readKey(in);
+            ZonedDateTime createdAt = readCreatedAt(in);
+            Object data = readData(in);
+            return new Event<>(eventType, key, data, createdAt);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Truncated or corrupt event of " + bytes.length + " bytes", ex);
+        }
+    }
+
+    private static void writeKey(Writer out, Object key) {
+        if (key == null) {
+            out.writeByte(NULL);
+        } else if (key instanceof Integer value) {
+            out.writeByte(INTEGER);
+            out.writeInt(value);
+        } else {
+            throw new IllegalArgumentException("Unsupported event key type: " + key.getClass().getName());
+        }
+    }
+
+    private static Integer readKey(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case INTEGER -> in.getInt();
+            default -> throw new IllegalArgumentException("Unknown event key tag: " + tag);
+        };
+    }
+
+    private static void writeCreatedAt(Writer out, ZonedDateTime createdAt) {
+        if (createdAt == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        out.writeByte(PRESENT);
+        out.writeLong(createdAt.toEpochSecond());
+        out.writeInt(createdAt.getNano());
+        out.writeString(createdAt.getZone().getId());
+    }
+
+    private static ZonedDateTime readCreatedAt(ByteBuffer in) {
+        if (in.get() == NULL) {
+            return null;
+        }
+        Instant instant = Instant.ofEpochSecond(in.getLong(), in.getInt());
+        return ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in)));
+    }
+
+    private static void writeData(Writer out, Object data) {
+        if (data == null) {
+            out.writeByte(NULL);
+        } else if (data instanceof Product product) {
+            out.writeByte(PRODUCT);
+            out.writeInt(product.getProductId());
+            out.writeString(product.getName());
+            out.writeInt(product.getWeight());
+            out.writeString(product.getServiceAddress());
+        } else if (data instanceof Recommendation recommendation) {
+            out.writeByte(RECOMMENDATION);
+            out.writeInt(recommendation.getProductId());
+            out.writeInt(recommendation.getRecommendationId());
+            out.writeString(recommendation.getAuthor());
+            out.writeInt(recommendation.getRate());
+            out.writeString(recommendation.getContent());
+            out.writeString(recommendation.getServiceAddress());
+        } else if (data instanceof Review review) {
+            out.writeByte(REVIEW);
+            out.writeInt(review.getProductId());
+            out.writeInt(review.getReviewId());
+            out.writeString(review.getAuthor());
+            out.writeString(review.getSubject());
+            out.writeString(review.getContent());
+            out.writeString(review.getServiceAddress());
+        } else {
+            throw new IllegalArgumentException("Unsupported event data type: " + data.getClass().getName());
+        }
+    }
+
+    private static Object readData(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case PRODUCT -> new Product(in.getInt(), readString(in), in.getInt(), readString(in));
+            case RECOMMENDATION -> new Recommendation(in.getInt(), in.getInt(), readString(in), in.getInt(),
+                    readString(in), readString(in));
+            case REVIEW -> new Review(in.getInt(), in.getInt(), readString(in), readString(in), readString(in),
+                    readString(in));
+            default -> throw new IllegalArgumentException("Unknown event data tag: " + tag);
+        };
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + length - 1);
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Growable byte array writer; unlike DataOutputStream it neither synchronizes nor limits string length.
+     */
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(Integer.BYTES);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.psp.util.messaging;
+
+import org.psp.api.core.event.Event;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Converts events to and from the {@link EventCodec} binary format for messages with the content type
+ * application/x-psp-event. Producers opt in by setting that content type on their output bindings;
+ * consumers pick the converter from the content type header of each message, so JSON and binary
+ * messages can be mixed on the same destination during a rollout.
+ */
+@Component
+public class EventMessageConverter extends AbstractMessageConverter {
+    public static final String CONTENT_TYPE = "application/x-psp-event";
+    public static final MimeType MIME_TYPE = MimeType.valueOf(CONTENT_TYPE);
+
+    public EventMessageConverter() {
+        super(MIME_TYPE);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Event.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        return message.getPayload() instanceof byte[] bytes ? EventCodec.decode(bytes) : null;
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return EventCodec.encode((Event<?, ?>) payload);
+    }
+}
@@ -0,0 +1,81 @@
+package org.psp.util.messaging;
+
+import org.psp.api.core.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Processes the event stream of a binding without blocking the binder thread. The events are spread over
+ * a fixed number of lanes by the hash of their key: a lane handles one event at a time, so the events of
+ * one key keep their order, while the lanes run in parallel. A fixed number of lanes keeps groupBy from
+ * opening one group per key, which would stall once more keys are in flight than flatMap subscribes to.
+ * <p>
+ * Reactive functions are not retried by the binder, so a failed event is retried here with the same
+ * back-off as the single event consumer and then handed to the dead letter publisher. An event the
+ * publisher fails to send is logged and dropped.
+ */
+public class ReactiveEventProcessor<K, T> implements Function<Flux<Event<K, T>>, Mono<Void>> {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEventProcessor.class);
+
+    private static final int MAX_RETRIES = 2;
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(500);
+    private static final Duration RETRY_MAX_BACKOFF = Duration.ofSeconds(1);
+
+    private final String name;
+    private final int concurrency;
+    private final Function<Event<K, T>, Mono<?>> handler;
+    private final BiConsumer<Event<K, T>, Throwable> deadLetterPublisher;
+
+    public ReactiveEventProcessor(String name, int concurrency, Function<Event<K, T>, Mono<?>> handler,
+                                  BiConsumer<Event<K, T>, Throwable> deadLetterPublisher) {
+        this.name = name;
+        this.concurrency = concurrency;
+        this.handler = handler;
+        this.deadLetterPublisher = deadLetterPublisher;
+    }
+
+    @Override
+    public Mono<Void> apply(Flux<Event<K, T>> events) {
+        LOG.info("Starts processing {} events on {} lanes", name, concurrency);
+        return events
+                .groupBy(event -> Math.floorMod(Objects.hashCode(event.getKey()), concurrency))
+                .flatMap(lane -> lane.concatMap(this::process), concurrency)
+                .then();
+    }
+
+    private Mono<Void> process(Event<K, T> event) {
+        return Mono.defer(() -> handler.apply(event))
+                .retryWhen(Retry.backoff(MAX_RETRIES, RETRY_BACKOFF).maxBackoff(RETRY_MAX_BACKOFF)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnSuccess(result -> LOG.debug("Processed {} event {} for key {}", name, event.getEventType(),
+                        event.getKey()))
+                .then()
+                .onErrorResume(ex -> {
+                    LOG.warn("Event {} for key {} failed, will send it to the dead letter queue: {}",
+                            event.getEventType(), event.getKey(), ex.toString());
+                    deadLetter(event, ex);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * An error here would end the lane and with it the subscription of the binding, so a failed publish is
+     * logged and the lane moves on to its next event.
+     */
+    private void deadLetter(Event<K, T> event, Throwable failure) {
+        try {
+            deadLetterPublisher.accept(event, failure);
+        } catch (RuntimeException ex) {
+            LOG.error("Event {} for key {} could not be sent to the dead letter queue, it is dropped",
+                    event.getEventType(), event.getKey(), ex);
+        }
+    }
+}
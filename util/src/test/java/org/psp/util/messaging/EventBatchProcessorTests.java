@@ -0,0 +1,66 @@
+package org.psp.util.messaging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.psp.api.core.event.Event;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.psp.api.core.event.Event.Type.CREATE;
+import static org.psp.api.core.event.Event.Type.DELETE;
+
+public class EventBatchProcessorTests {
+    private List<String> writes;
+    private List<Integer> deadLetters;
+    private boolean failBulkCreate;
+
+    private EventBatchProcessor<Integer, String> processor;
+
+    @BeforeEach
+    void setUp() {
+        writes = new ArrayList<>();
+        deadLetters = new ArrayList<>();
+        failBulkCreate = false;
+        processor = new EventBatchProcessor<>("test",
+                items -> failBulkCreate ? Mono.error(new IllegalStateException("bulk failed"))
+                        : Mono.fromRunnable(() -> writes.add("create" + items)),
+                keys -> Mono.fromRunnable(() -> writes.add("delete" + keys)),
+                event -> {
+                    if ("bad".equals(event.getData())) {
+                        throw new IllegalArgumentException("bad event");
+                    }
+                    writes.add("single " + event.getEventType() + " " + event.getKey());
+                },
+                (event, ex) -> deadLetters.add(event.getKey()));
+    }
+
+    @Test
+    void consecutiveEventsOfOneTypeAreWrittenTogetherInOrder() {
+        processor.accept(List.of(
+                new Event<>(CREATE, 1, "a"),
+                new Event<>(CREATE, 2, "b"),
+                new Event<>(DELETE, 1, null),
+                new Event<>(DELETE, 1, null),
+                new Event<>(CREATE, 3, "c")));
+
+        assertEquals(List.of("create[a, b]", "delete[1]", "create[c]"), writes);
+        assertEquals(List.of(), deadLetters);
+    }
+
+    @Test
+    void failedBulkWriteIsRetriedPerEventAndOnlyBadEventsAreDeadLettered() {
+        failBulkCreate = true;
+
+        processor.accept(List.of(
+                new Event<>(CREATE, 1, "a"),
+                new Event<>(CREATE, 2, "bad"),
+                new Event<>(CREATE, 3, "c"),
+                new Event<>(DELETE, 4, null)));
+
+        assertEquals(List.of("single CREATE 1", "single CREATE 3", "delete[4]"), writes);
+        assertEquals(List.of(2), deadLetters);
+    }
+}
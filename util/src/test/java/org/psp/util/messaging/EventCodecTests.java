@@ -0,0 +1,74 @@
+package org.psp.util.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.psp.api.core.event.Event;
+import org.psp.api.core.product.Product;
+import org.psp.api.core.recommendation.Recommendation;
+import org.psp.api.core.review.Review;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.psp.api.core.event.Event.Type.CREATE;
+import static org.psp.api.core.event.Event.Type.DELETE;
+
+public class EventCodecTests {
+    private static final ZonedDateTime CREATED_AT =
+            ZonedDateTime.of(2024, 2, 29, 12, 30, 15, 123456789, ZoneId.of("Europe/Moscow"));
+
+    @Test
+    void createEventsRoundTrip() {
+        assertRoundTrip(new Event<>(CREATE, 1, new Product(1, "имя", 10, null), CREATED_AT));
+        assertRoundTrip(new Event<>(CREATE, 1, new Recommendation(1, 2, "a", 3, "c", "host/1.2.3.4:80"), CREATED_AT));
+        assertRoundTrip(new Event<>(CREATE, 1, new Review(1, 3, "a", "s", "c".repeat(100_000), null), CREATED_AT));
+    }
+
+    @Test
+    void deleteEventRoundTrip() {
+        assertRoundTrip(new Event<>(DELETE, 1, null, CREATED_AT));
+        assertRoundTrip(new Event<>(DELETE, 1, null, null));
+    }
+
+    @Test
+    void corruptInputIsRejected() {
+        byte[] bytes = EventCodec.encode(new Event<>(CREATE, 1, new Product(1, "name", 10, null), CREATED_AT));
+
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)));
+        bytes[0] = 9;
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.decode(bytes));
+    }
+
+    @Test
+    void converterOnlyHandlesItsContentType() {
+        EventMessageConverter converter = new EventMessageConverter();
+        Event<Integer, Product> event = new Event<>(CREATE, 1, new Product(1, "name", 10, null), CREATED_AT);
+
+        Message<?> message = converter.toMessage(event, new MessageHeaders(
+                Map.of(MessageHeaders.CONTENT_TYPE, EventMessageConverter.MIME_TYPE)));
+        assertArrayEquals(EventCodec.encode(event), (byte[]) message.getPayload());
+        assertEquals(event.getData(), ((Event<?, ?>) converter.fromMessage(message, Event.class)).getData());
+
+        Message<byte[]> json = MessageBuilder.withPayload("{}".getBytes())
+                .setHeader(MessageHeaders.CONTENT_TYPE, "application/json")
+                .build();
+        assertNull(converter.fromMessage(json, Event.class));
+    }
+
+    private void assertRoundTrip(Event<Integer, ?> event) {
+        Event<Integer, Object> decoded = EventCodec.decode(EventCodec.encode(event));
+
+        assertEquals(event.getEventType(), decoded.getEventType());
+        assertEquals(event.getKey(), decoded.getKey());
+        assertEquals(event.getEventCreatedAt(), decoded.getEventCreatedAt());
+        assertEquals(event.getData(), decoded.getData());
+    }
+}
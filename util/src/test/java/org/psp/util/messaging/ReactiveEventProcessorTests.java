@@ -0,0 +1,90 @@
+package org.psp.util.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.psp.api.core.event.Event;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.psp.api.core.event.Event.Type.CREATE;
+import static org.psp.api.core.event.Event.Type.DELETE;
+
+public class ReactiveEventProcessorTests {
+    private final Map<Integer, List<String>> processed = new ConcurrentHashMap<>();
+    private final List<Integer> deadLetters = new CopyOnWriteArrayList<>();
+
+    @Test
+    void eventsOfOneKeyKeepTheirOrderWhileKeysRunInParallel() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ReactiveEventProcessor<Integer, String> processor = new ReactiveEventProcessor<>("test", 4,
+                event -> Mono.fromRunnable(() -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .then(Mono.delay(Duration.ofMillis(20)))
+                        .doOnNext(tick -> record(event))
+                        .doFinally(signal -> inFlight.decrementAndGet()),
+                (event, ex) -> deadLetters.add(event.getKey()));
+
+        Flux<Event<Integer, String>> events = Flux.range(0, 5)
+                .concatMap(round -> Flux.range(1, 4).map(key -> new Event<>(CREATE, key, "v" + round)));
+
+        processor.apply(events).block(Duration.ofSeconds(5));
+
+        for (int key = 1; key <= 4; key++) {
+            assertEquals(List.of("v0", "v1", "v2", "v3", "v4"), processed.get(key));
+        }
+        assertTrue(maxInFlight.get() > 1, "Expected parallel lanes, max in flight: " + maxInFlight.get());
+    }
+
+    @Test
+    void failingEventIsDeadLetteredAndTheStreamContinues() {
+        AtomicInteger attempts = new AtomicInteger();
+        ReactiveEventProcessor<Integer, String> processor = new ReactiveEventProcessor<>("test", 2,
+                event -> event.getEventType() == DELETE
+                        ? Mono.error(new IllegalStateException("attempt " + attempts.incrementAndGet()))
+                        : Mono.fromRunnable(() -> record(event)),
+                (event, ex) -> deadLetters.add(event.getKey()));
+
+        processor.apply(Flux.just(
+                new Event<>(CREATE, 1, "a"),
+                new Event<>(DELETE, 1, null),
+                new Event<>(CREATE, 1, "b"))).block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("a", "b"), processed.get(1));
+        assertEquals(List.of(1), deadLetters);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void failingDeadLetterPublisherDoesNotEndTheStream() {
+        ReactiveEventProcessor<Integer, String> processor = new ReactiveEventProcessor<>("test", 1,
+                event -> event.getEventType() == DELETE
+                        ? Mono.error(new IllegalStateException("handler"))
+                        : Mono.fromRunnable(() -> record(event)),
+                (event, ex) -> {
+                    deadLetters.add(event.getKey());
+                    throw new IllegalStateException("dead letter queue unavailable");
+                });
+
+        processor.apply(Flux.just(
+                new Event<>(DELETE, 1, null),
+                new Event<>(CREATE, 1, "a"),
+                new Event<>(DELETE, 2, null),
+                new Event<>(CREATE, 2, "b"))).block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("a"), processed.get(1));
+        assertEquals(List.of("b"), processed.get(2));
+        assertEquals(List.of(1, 2), deadLetters);
+    }
+
+    private void record(Event<Integer, String> event) {
+        processed.computeIfAbsent(event.getKey(), key -> new CopyOnWriteArrayList<>()).add(event.getData());
+    }
+}